@@ -0,0 +1,55 @@
+package com.liuiie.demo.utils.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对称加密压测：CryptoUtils（AES-CBC）与 SecureCryptoUtils（AES-GCM）
+ *
+ * @author Liuiie
+ * @since 2026/10/18 18:05
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoBenchmark {
+
+    private static final String PLAIN_TEXT = "敏感数据|1760000000000|employee|marketing";
+
+    private String symmetricKey;
+
+    private String iv;
+
+    private byte[] secureKey;
+
+    @Setup
+    public void setup() throws Exception {
+        symmetricKey = CryptoUtils.generateSymmetricKey(CryptoUtils.Algorithm.Encryption.AES_CBC_PKCS5);
+        iv = Base64.getEncoder().encodeToString(new byte[16]);
+        secureKey = AESKeyGenerator.generateRandomKey().getEncoded();
+    }
+
+    @Benchmark
+    public String encryptSymmetrically() throws Exception {
+        return CryptoUtils.encryptSymmetrically(symmetricKey, iv, PLAIN_TEXT, CryptoUtils.Algorithm.Encryption.AES_CBC_PKCS5);
+    }
+
+    @Benchmark
+    public String secureEncrypt() throws Exception {
+        return SecureCryptoUtils.encrypt(secureKey, PLAIN_TEXT);
+    }
+}
@@ -0,0 +1,76 @@
+package com.liuiie.demo.utils.id;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花算法加锁与无锁两种生成方式在不同线程数下的竞争压测
+ *      单个 workerId 每毫秒最多 4096 个ID，吞吐接近 4096 ops/ms 时说明已经达到序列号上限
+ *
+ * @author Liuiie
+ * @since 2026/10/18 17:50
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnowflakeIdBenchmark {
+
+    @Param({"SYNCHRONIZED", "LOCK_FREE"})
+    private SnowflakeIdUtil.GenerateMode mode;
+
+    private SnowflakeIdUtil idUtil;
+
+    private final long[] block = new long[1000];
+
+    @Setup
+    public void setup() {
+        idUtil = SnowflakeIdUtil.create(SnowflakeLayout.DEFAULT, 0, 1);
+        idUtil.setGenerateMode(mode);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long nextId1Thread() {
+        return idUtil.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long nextId8Threads() {
+        return idUtil.nextId();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public long nextId32Threads() {
+        return idUtil.nextId();
+    }
+
+    @Benchmark
+    @Threads(128)
+    public long nextId128Threads() {
+        return idUtil.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long[] nextIdBlock1000() {
+        idUtil.nextIdBlock(block);
+        return block;
+    }
+}
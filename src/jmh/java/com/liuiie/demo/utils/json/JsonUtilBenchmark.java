@@ -0,0 +1,37 @@
+package com.liuiie.demo.utils.json;
+
+import com.liuiie.demo.utils.object.template.MemberInfoDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Json 工具类压测
+ *
+ * @author Liuiie
+ * @since 2026/10/18 18:00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonUtilBenchmark {
+
+    private static final String MEMBER_JSON = "{\"id\":1000100010001,\"name\":\"Gogo\",\"age\":14,"
+            + "\"email\":\"gogo@oo.com\",\"identity\":\"employee\",\"group\":\"marketing\"}";
+
+    @Benchmark
+    public MemberInfoDTO convertString2Obj() throws ConvertException {
+        return JsonUtil.convertString2Obj(MEMBER_JSON, MemberInfoDTO.class);
+    }
+}
@@ -0,0 +1,67 @@
+package com.liuiie.demo.utils.object;
+
+import com.liuiie.demo.utils.object.template.MemberInfoDTO;
+import com.liuiie.demo.utils.object.template.MemberInfoVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * orika进阶映射工具类压测
+ *
+ * @author Liuiie
+ * @since 2026/10/18 17:55
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanUtilsBenchmark {
+
+    private MemberInfoDTO member;
+
+    private List<MemberInfoDTO> members;
+
+    @Setup
+    public void setup() {
+        member = newMember(1000100010001L);
+        members = new ArrayList<>(100);
+        for (int i = 0; i < 100; i++) {
+            members.add(newMember(i));
+        }
+    }
+
+    @Benchmark
+    public MemberInfoVO map() {
+        return BeanUtils.map(member, MemberInfoVO.class);
+    }
+
+    @Benchmark
+    public List<MemberInfoVO> mapAsList100() {
+        return BeanUtils.mapAsList(members, MemberInfoVO.class);
+    }
+
+    private static MemberInfoDTO newMember(long id) {
+        MemberInfoDTO dto = new MemberInfoDTO();
+        dto.setId(id);
+        dto.setName("Gogo");
+        dto.setAge(14);
+        dto.setEmail("gogo@oo.com");
+        dto.setIdentity("employee");
+        dto.setGroup("marketing");
+        return dto;
+    }
+}
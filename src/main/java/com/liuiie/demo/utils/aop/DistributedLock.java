@@ -0,0 +1,83 @@
+package com.liuiie.demo.utils.aop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 分布式锁
+ *      在方法执行前加锁、执行后释放，加锁失败时抛出 {@link com.liuiie.demo.utils.lock.DistributedLockException}
+ *
+ * <pre>
+ * &#64;DistributedLock(name = "order", key = "#order.id", waitTime = 3, leaseTime = 30)
+ * public void pay(Order order) { ... }
+ * </pre>
+ *
+ * @author Liuiie
+ * @since 2026/10/18 20:05
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface DistributedLock {
+    /**
+     * 锁名前缀，为空时使用 类名:方法名
+     */
+    String name() default "";
+
+    /**
+     * 锁名的 SpEL 表达式，可以引用方法参数，如 #order.id、#p0；只能读取属性与调用实例方法，
+     * 不支持 T(...) 类型引用与 new；为空时整个方法共用一把锁
+     */
+    String key() default "";
+
+    /**
+     * 加锁的最长等待时间（秒），0 表示不等待
+     */
+    int waitTime() default 0;
+
+    /**
+     * 锁的有效期（秒）
+     */
+    int leaseTime() default 30;
+
+    /**
+     * 锁的模式
+     */
+    Mode mode() default Mode.REENTRANT;
+
+    /**
+     * 锁的实现
+     */
+    Backend backend() default Backend.REDISSON;
+
+    enum Mode {
+        /**
+         * 可重入锁
+         */
+        REENTRANT,
+        /**
+         * 读锁（共享）
+         */
+        READ,
+        /**
+         * 写锁（独占）
+         */
+        WRITE,
+        /**
+         * 公平锁，按请求顺序获取
+         */
+        FAIR
+    }
+
+    enum Backend {
+        /**
+         * RedissonLockUtil
+         */
+        REDISSON,
+        /**
+         * RedisLockUtil；REENTRANT 与 FAIR 使用本地公平锁 + Redis 的 TwoLevelLockUtil，READ 与 WRITE 不等待
+         */
+        REDIS
+    }
+}
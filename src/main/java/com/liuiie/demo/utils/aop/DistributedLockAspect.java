@@ -0,0 +1,248 @@
+package com.liuiie.demo.utils.aop;
+
+import com.liuiie.demo.utils.lock.DistributedLockException;
+import com.liuiie.demo.utils.lock.RedisLockUtil;
+import com.liuiie.demo.utils.lock.RedissonLockUtil;
+import com.liuiie.demo.utils.lock.TwoLevelLockUtil;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.DataBindingPropertyAccessor;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁切面
+ *      每个方法的 SpEL 表达式与参数名只解析一次并缓存，表达式以 MIXED 模式编译为字节码，热路径上不再反射解析；
+ *      求值使用只读的 SimpleEvaluationContext，只能读取参数的属性、调用实例方法，不支持类型引用与构造对象。
+ *      RedisLockUtil 的读写锁按请求 ID 识别持有者，同一线程对同一把锁嵌套加锁时复用外层的请求 ID，因此可以重入。
+ *      切面优先级最高，锁包裹在事务之外，事务提交后才释放锁
+ *
+ * @author Liuiie
+ * @since 2026/10/18 20:15
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DistributedLockAspect {
+
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, DistributedLockAspect.class.getClassLoader()));
+
+    private static final ParameterNameDiscoverer NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+
+    /**
+     * 各次求值共用，保留属性读取方法的缓存
+     */
+    private static final DataBindingPropertyAccessor PROPERTY_ACCESSOR = DataBindingPropertyAccessor.forReadOnlyAccess();
+
+    /**
+     * 当前线程持有的 RedisLockUtil 读写锁的请求 ID，键为锁名
+     */
+    private static final ThreadLocal<Map<String, HeldRequest>> REQUEST_IDS = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * 每个方法解析好的锁名模板
+     */
+    private final Map<Method, LockNameTemplate> templates = new ConcurrentHashMap<>();
+
+    @Around("@annotation(distributedLock)")
+    public Object doAround(ProceedingJoinPoint proceedingJoinPoint, DistributedLock distributedLock) throws Throwable {
+        Method method = ((MethodSignature) proceedingJoinPoint.getSignature()).getMethod();
+        String lockName = getTemplate(method, distributedLock).render(proceedingJoinPoint.getArgs());
+        // 只有 RedisLockUtil 的读写锁需要请求 ID，Redisson 与 TwoLevelLockUtil 按线程识别持有者
+        String requestId = usesRequestId(distributedLock) ? retainRequestId(lockName) : null;
+        try {
+            if (!acquire(distributedLock, lockName, requestId)) {
+                throw new DistributedLockException("获取分布式锁失败: " + lockName);
+            }
+            try {
+                return proceedingJoinPoint.proceed();
+            } finally {
+                release(distributedLock, lockName, requestId);
+            }
+        } finally {
+            if (requestId != null) {
+                releaseRequestId(lockName);
+            }
+        }
+    }
+
+    private static boolean usesRequestId(DistributedLock distributedLock) {
+        return distributedLock.backend() == DistributedLock.Backend.REDIS
+                && (distributedLock.mode() == DistributedLock.Mode.READ || distributedLock.mode() == DistributedLock.Mode.WRITE);
+    }
+
+    /**
+     * 获取当前线程在该锁上的请求 ID，外层已持有时复用。
+     *      复用后写锁内可以再加读锁或写锁；读锁内加写锁（锁升级）仍然会失败
+     */
+    static String retainRequestId(String lockName) {
+        HeldRequest held = REQUEST_IDS.get().computeIfAbsent(lockName, k -> new HeldRequest(UUID.randomUUID().toString()));
+        held.count++;
+        return held.requestId;
+    }
+
+    /**
+     * 退出一层加锁，最外层退出时移除请求 ID
+     */
+    static void releaseRequestId(String lockName) {
+        Map<String, HeldRequest> requestIds = REQUEST_IDS.get();
+        HeldRequest held = requestIds.get(lockName);
+        if (held != null && --held.count <= 0) {
+            requestIds.remove(lockName);
+            if (requestIds.isEmpty()) {
+                REQUEST_IDS.remove();
+            }
+        }
+    }
+
+    private LockNameTemplate getTemplate(Method method, DistributedLock distributedLock) {
+        LockNameTemplate template = templates.get(method);
+        if (template == null) {
+            template = new LockNameTemplate(method, distributedLock);
+            LockNameTemplate previous = templates.putIfAbsent(method, template);
+            if (previous != null) {
+                template = previous;
+            }
+        }
+        return template;
+    }
+
+    private static boolean acquire(DistributedLock distributedLock, String lockName, String requestId) {
+        int leaseTime = distributedLock.leaseTime();
+        int waitTime = distributedLock.waitTime();
+        if (distributedLock.backend() == DistributedLock.Backend.REDISSON) {
+            switch (distributedLock.mode()) {
+                case READ:
+                    return RedissonLockUtil.tryReadLock(lockName, leaseTime, waitTime);
+                case WRITE:
+                    return RedissonLockUtil.tryWriteLock(lockName, leaseTime, waitTime);
+                case FAIR:
+                    return RedissonLockUtil.tryFairLock(lockName, leaseTime, waitTime);
+                default:
+                    return RedissonLockUtil.tryLock(lockName, leaseTime, waitTime);
+            }
+        }
+        switch (distributedLock.mode()) {
+            case READ:
+                return RedisLockUtil.readLock(lockName, requestId, leaseTime, TimeUnit.SECONDS);
+            case WRITE:
+                return RedisLockUtil.writeLock(lockName, requestId, leaseTime, TimeUnit.SECONDS);
+            default:
+                return TwoLevelLockUtil.tryLock(lockName, leaseTime, TimeUnit.SECONDS, TimeUnit.SECONDS.toMillis(waitTime));
+        }
+    }
+
+    private static void release(DistributedLock distributedLock, String lockName, String requestId) {
+        if (distributedLock.backend() == DistributedLock.Backend.REDISSON) {
+            switch (distributedLock.mode()) {
+                case READ:
+                    RedissonLockUtil.unlockRead(lockName);
+                    break;
+                case WRITE:
+                    RedissonLockUtil.unlockWrite(lockName);
+                    break;
+                case FAIR:
+                    RedissonLockUtil.unlockFair(lockName);
+                    break;
+                default:
+                    RedissonLockUtil.unlock(lockName);
+            }
+            return;
+        }
+        switch (distributedLock.mode()) {
+            case READ:
+                RedisLockUtil.readUnlock(lockName, requestId);
+                break;
+            case WRITE:
+                RedisLockUtil.writeUnlock(lockName, requestId);
+                break;
+            default:
+                TwoLevelLockUtil.unlock(lockName);
+        }
+    }
+
+    /**
+     * 当前线程在一把锁上的请求 ID 与嵌套层数
+     */
+    private static final class HeldRequest {
+        private final String requestId;
+
+        private int count;
+
+        private HeldRequest(String requestId) {
+            this.requestId = requestId;
+        }
+    }
+
+    /**
+     * 锁名模板：前缀 + 可选的 SpEL 表达式
+     */
+    static final class LockNameTemplate {
+        private final String prefix;
+
+        private final Expression expression;
+
+        private final String[] parameterNames;
+
+        /**
+         * p0、p1 ... 形式的参数别名
+         */
+        private final String[] indexNames;
+
+        LockNameTemplate(Method method, DistributedLock distributedLock) {
+            this.prefix = distributedLock.name().isEmpty()
+                    ? method.getDeclaringClass().getSimpleName() + ":" + method.getName()
+                    : distributedLock.name();
+            this.expression = distributedLock.key().isEmpty() ? null : PARSER.parseExpression(distributedLock.key());
+            String[] names = NAME_DISCOVERER.getParameterNames(method);
+            this.parameterNames = names != null ? names : new String[0];
+            this.indexNames = new String[method.getParameterCount()];
+            for (int i = 0; i < indexNames.length; i++) {
+                indexNames[i] = "p" + i;
+            }
+        }
+
+        /**
+         * 计算锁名，参数可以用参数名或 #p0、#p1 引用
+         */
+        String render(Object[] args) {
+            if (expression == null) {
+                return prefix;
+            }
+            SimpleEvaluationContext context = SimpleEvaluationContext.forPropertyAccessors(PROPERTY_ACCESSOR)
+                    .withInstanceMethods()
+                    .build();
+            for (int i = 0; i < args.length; i++) {
+                if (i < parameterNames.length) {
+                    context.setVariable(parameterNames[i], args[i]);
+                }
+                if (i < indexNames.length) {
+                    context.setVariable(indexNames[i], args[i]);
+                }
+            }
+            Object value = expression.getValue(context);
+            if (value == null) {
+                throw new DistributedLockException("分布式锁 key 计算结果为 null: " + prefix);
+            }
+            return prefix + ":" + value;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.liuiie.demo.utils.id;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带线程本地缓冲的雪花算法id生成器
+ *      每个线程持有一个预先生成好的ID环形缓冲，取ID时只是一次数组读取；
+ *      后台补充线程在缓冲余量低于阈值时批量生成新ID，思路参考百度 UidGenerator 的 CachedUidGenerator。
+ *      缓冲为空时直接回落到 {@link SnowflakeIdUtil#nextId()}，并计为一次未命中
+ *
+ * @author Liuiie
+ * @since 2026/10/18 11:05
+ */
+@Slf4j
+public class BufferedSnowflakeIdGenerator {
+    /**
+     * 默认每个线程的缓冲大小
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 4096;
+    /**
+     * 默认补充阈值：剩余不足一半时补充
+     */
+    public static final int DEFAULT_PADDING_PERCENT = 50;
+    /**
+     * 后台线程兜底巡检的间隔（毫秒）
+     */
+    private static final long SCAN_INTERVAL_MILLIS = 100L;
+
+    private static final long SCAN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(SCAN_INTERVAL_MILLIS);
+
+    private final SnowflakeIdUtil delegate;
+
+    private final int bufferSize;
+
+    /**
+     * 剩余数量低于该值时触发补充
+     */
+    private final int paddingThreshold;
+
+    /**
+     * 所有存活线程的缓冲，供后台线程巡检
+     */
+    private final Set<IdRing> rings = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 待补充的缓冲
+     */
+    private final BlockingQueue<IdRing> refillQueue = new LinkedBlockingQueue<>();
+
+    private final ThreadLocal<IdRing> localRing = ThreadLocal.withInitial(this::createRing);
+
+    /**
+     * 已退出线程的命中、未命中次数
+     */
+    private final LongAdder retiredHits = new LongAdder();
+
+    private final LongAdder retiredMisses = new LongAdder();
+
+    /**
+     * 回收缓冲与汇总计数互斥，避免回收过程中计数被重复统计或遗漏
+     */
+    private final Object retireLock = new Object();
+
+    private final Thread refillThread;
+
+    private volatile boolean running = true;
+
+    public BufferedSnowflakeIdGenerator(SnowflakeIdUtil delegate) {
+        this(delegate, DEFAULT_BUFFER_SIZE, DEFAULT_PADDING_PERCENT);
+    }
+
+    /**
+     * 构造带缓冲的生成器并启动后台补充线程
+     *
+     * @param delegate       实际生成ID的雪花算法实例
+     * @param bufferSize     每个线程的缓冲大小，必须是2的幂
+     * @param paddingPercent 剩余百分比低于该值时触发补充，取值 1~99
+     */
+    public BufferedSnowflakeIdGenerator(SnowflakeIdUtil delegate, int bufferSize, int paddingPercent) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate must not be null");
+        }
+        if (bufferSize < 2 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2");
+        }
+        if (paddingPercent <= 0 || paddingPercent >= 100) {
+            throw new IllegalArgumentException("paddingPercent must be between 1 and 99");
+        }
+        this.delegate = delegate;
+        this.bufferSize = bufferSize;
+        this.paddingThreshold = Math.max(1, bufferSize * paddingPercent / 100);
+        this.refillThread = new Thread(this::refillLoop, "snowflake-id-refill");
+        this.refillThread.setDaemon(true);
+        this.refillThread.start();
+    }
+
+    /**
+     * 获取下一个ID，同一线程内严格递增
+     *
+     * @return 下一个唯一的ID
+     */
+    public long nextId() {
+        IdRing ring = localRing.get();
+        long id = ring.poll();
+        if (id > 0) {
+            return id;
+        }
+        IdRing.MISSES.lazySet(ring, ring.misses + 1);
+        ring.requestRefill();
+        id = delegate.nextId();
+        ring.lastId = id;
+        return id;
+    }
+
+    /**
+     * 缓冲命中次数
+     */
+    public long getHitCount() {
+        synchronized (retireLock) {
+            long sum = retiredHits.sum();
+            for (IdRing ring : rings) {
+                sum += ring.hits;
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * 缓冲未命中次数
+     */
+    public long getMissCount() {
+        synchronized (retireLock) {
+            long sum = retiredMisses.sum();
+            for (IdRing ring : rings) {
+                sum += ring.misses;
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * 缓冲命中率
+     */
+    public double getHitRatio() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0D : (double) hits / total;
+    }
+
+    /**
+     * 停止后台补充线程，之后的取号全部回落到 {@link SnowflakeIdUtil#nextId()}
+     */
+    public void shutdown() {
+        running = false;
+        refillThread.interrupt();
+    }
+
+    /**
+     * 为当前线程创建缓冲。
+     *      此时缓冲尚未登记，后台线程看不到它，由当前线程直接填满即可
+     */
+    private IdRing createRing() {
+        IdRing ring = new IdRing(Thread.currentThread(), bufferSize, paddingThreshold, this);
+        ring.fill(delegate);
+        rings.add(ring);
+        return ring;
+    }
+
+    /**
+     * 处理补充请求，并按固定间隔巡检；巡检不依赖队列空闲，补充请求持续不断时也会按时回收已退出线程的缓冲
+     */
+    private void refillLoop() {
+        long nextScan = System.nanoTime() + SCAN_INTERVAL_NANOS;
+        while (running) {
+            try {
+                long wait = nextScan - System.nanoTime();
+                IdRing ring = wait > 0 ? refillQueue.poll(wait, TimeUnit.NANOSECONDS) : refillQueue.poll();
+                if (ring != null) {
+                    refill(ring);
+                }
+                if (System.nanoTime() - nextScan >= 0) {
+                    scan();
+                    nextScan = System.nanoTime() + SCAN_INTERVAL_NANOS;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("ID缓冲补充异常", e);
+            }
+        }
+    }
+
+    /**
+     * 兜底巡检：补充余量不足的缓冲，回收已退出线程的缓冲
+     */
+    private void scan() {
+        Iterator<IdRing> iterator = rings.iterator();
+        while (iterator.hasNext()) {
+            IdRing ring = iterator.next();
+            Thread owner = ring.owner.get();
+            if (owner == null || !owner.isAlive()) {
+                // 所属线程已退出，计数不会再变化，先并入汇总再移除
+                synchronized (retireLock) {
+                    retiredHits.add(ring.hits);
+                    retiredMisses.add(ring.misses);
+                    iterator.remove();
+                }
+            } else if (ring.remaining() < paddingThreshold) {
+                refill(ring);
+            }
+        }
+    }
+
+    private void refill(IdRing ring) {
+        try {
+            ring.fill(delegate);
+        } finally {
+            ring.refillPending.set(false);
+        }
+    }
+
+    /**
+     * 单生产者单消费者的环形缓冲：消费者是所属线程，生产者是后台补充线程
+     */
+    private static final class IdRing {
+        private static final AtomicLongFieldUpdater<IdRing> HEAD =
+                AtomicLongFieldUpdater.newUpdater(IdRing.class, "head");
+
+        private static final AtomicLongFieldUpdater<IdRing> TAIL =
+                AtomicLongFieldUpdater.newUpdater(IdRing.class, "tail");
+
+        private static final AtomicLongFieldUpdater<IdRing> HITS =
+                AtomicLongFieldUpdater.newUpdater(IdRing.class, "hits");
+
+        private static final AtomicLongFieldUpdater<IdRing> MISSES =
+                AtomicLongFieldUpdater.newUpdater(IdRing.class, "misses");
+
+        private final WeakReference<Thread> owner;
+
+        private final long[] buffer;
+
+        private final int mask;
+
+        private final int paddingThreshold;
+
+        private final BufferedSnowflakeIdGenerator generator;
+
+        private final AtomicBoolean refillPending = new AtomicBoolean(false);
+
+        /**
+         * 下一个待读取的位置，只由所属线程推进
+         */
+        private volatile long head;
+
+        /**
+         * 下一个待写入的位置，只由生产者推进
+         */
+        private volatile long tail;
+
+        /**
+         * 所属线程最近一次取到的ID，用来丢弃补充过程中被直接取号超越的旧ID，保证线程内递增
+         */
+        private long lastId;
+
+        /**
+         * 命中、未命中次数，只由所属线程通过 lazySet 写入，统计与回收线程读取
+         */
+        private volatile long hits;
+
+        private volatile long misses;
+
+        private IdRing(Thread owner, int bufferSize, int paddingThreshold, BufferedSnowflakeIdGenerator generator) {
+            this.owner = new WeakReference<>(owner);
+            this.buffer = new long[bufferSize];
+            this.mask = bufferSize - 1;
+            this.paddingThreshold = paddingThreshold;
+            this.generator = generator;
+        }
+
+        /**
+         * 取出下一个ID
+         *
+         * @return ID，缓冲为空时返回 -1
+         */
+        private long poll() {
+            long h = head;
+            long t = tail;
+            while (h < t) {
+                long id = buffer[(int) h & mask];
+                HEAD.lazySet(this, ++h);
+                if (id > lastId) {
+                    lastId = id;
+                    HITS.lazySet(this, hits + 1);
+                    if (t - h < paddingThreshold) {
+                        requestRefill();
+                    }
+                    return id;
+                }
+            }
+            return -1L;
+        }
+
+        private long remaining() {
+            return tail - head;
+        }
+
+        private void requestRefill() {
+            if (generator.running && refillPending.compareAndSet(false, true)) {
+                generator.refillQueue.offer(this);
+            }
+        }
+
+        /**
+         * 把空闲位置一次性填满，跨越数组末尾时分两段生成
+         */
+        private void fill(SnowflakeIdUtil delegate) {
+            long t = tail;
+            int free = buffer.length - (int) (t - head);
+            if (free <= 0) {
+                return;
+            }
+            int start = (int) t & mask;
+            int first = Math.min(free, buffer.length - start);
+            delegate.nextIdBlock(buffer, start, first);
+            if (free > first) {
+                delegate.nextIdBlock(buffer, 0, free - first);
+            }
+            TAIL.lazySet(this, t + free);
+        }
+    }
+}
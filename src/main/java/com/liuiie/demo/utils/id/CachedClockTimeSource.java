@@ -0,0 +1,113 @@
+package com.liuiie.demo.utils.id;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 缓存时钟
+ *      由专门的滴答线程定时刷新毫秒时间戳，读取时只是一次 volatile 读；
+ *      等待下一毫秒的线程挂起在等待队列上，由滴答线程在时间推进后统一唤醒
+ *
+ * @author Liuiie
+ * @since 2026/10/18 15:20
+ */
+public class CachedClockTimeSource implements TimeSource {
+    /**
+     * 默认刷新间隔（纳秒）
+     */
+    private static final long DEFAULT_TICK_NANOS = TimeUnit.MICROSECONDS.toNanos(250);
+
+    private static volatile CachedClockTimeSource instance = null;
+
+    private final long tickNanos;
+
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    private final Thread ticker;
+
+    private volatile long now = System.currentTimeMillis();
+
+    private volatile boolean running = true;
+
+    /**
+     * 创建缓存时钟并启动滴答线程
+     *
+     * @param tickNanos 刷新间隔（纳秒），不大于1毫秒才能保证毫秒级精度
+     */
+    public CachedClockTimeSource(long tickNanos) {
+        if (tickNanos <= 0 || tickNanos > TimeUnit.MILLISECONDS.toNanos(1)) {
+            throw new IllegalArgumentException("tickNanos must be between 1 and 1000000");
+        }
+        this.tickNanos = tickNanos;
+        this.ticker = new Thread(this::tick, "snowflake-clock-ticker");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * 获取共享的缓存时钟
+     *
+     * @return 缓存时钟单例
+     */
+    public static CachedClockTimeSource getInstance() {
+        if (instance == null) {
+            synchronized (CachedClockTimeSource.class) {
+                if (instance == null) {
+                    instance = new CachedClockTimeSource(DEFAULT_TICK_NANOS);
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        // 停止后不再刷新，改为直接读取系统时钟
+        return running ? now : System.currentTimeMillis();
+    }
+
+    @Override
+    public long awaitAfter(long timestamp) {
+        long current = currentTimeMillis();
+        if (current > timestamp) {
+            return current;
+        }
+        Thread thread = Thread.currentThread();
+        waiters.offer(thread);
+        try {
+            while ((current = now) <= timestamp) {
+                // 带超时挂起，防止错过唤醒或时钟停止后一直挂起
+                LockSupport.parkNanos(this, tickNanos << 1);
+                if (!running) {
+                    return TimeSource.super.awaitAfter(timestamp);
+                }
+            }
+        } finally {
+            waiters.remove(thread);
+        }
+        return current;
+    }
+
+    /**
+     * 停止滴答线程，之后退化为直接读取系统时钟
+     */
+    public void shutdown() {
+        running = false;
+        ticker.interrupt();
+    }
+
+    private void tick() {
+        while (running) {
+            long millis = System.currentTimeMillis();
+            if (millis != now) {
+                now = millis;
+                for (Thread waiter : waiters) {
+                    LockSupport.unpark(waiter);
+                }
+            }
+            LockSupport.parkNanos(this, tickNanos);
+        }
+    }
+}
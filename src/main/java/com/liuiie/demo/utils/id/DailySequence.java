@@ -0,0 +1,22 @@
+package com.liuiie.demo.utils.id;
+
+import java.time.LocalDate;
+
+/**
+ * 按天重置的序列号来源
+ *      每个 (业务类型, 日期) 各自从 1 开始递增，格式化单号的定长序列号段由它提供
+ *
+ * @author Liuiie
+ * @since 2026/10/18 23:10
+ */
+@FunctionalInterface
+public interface DailySequence {
+    /**
+     * 获取业务类型在指定日期的下一个序列号
+     *
+     * @param bizType 业务类型
+     * @param date    单号中的日期
+     * @return 当天的序列号，从 1 开始
+     */
+    long next(String bizType, LocalDate date);
+}
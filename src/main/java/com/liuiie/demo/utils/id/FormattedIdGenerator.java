@@ -0,0 +1,216 @@
+package com.liuiie.demo.utils.id;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 带业务前缀的格式化ID生成器，生成形如 ORD20261018000123 的单号：前缀 + yyyyMMdd + 定长序列号
+ *      序列号取自 {@link DailySequence}，每个 (业务类型, 日期) 各自从 1 开始，单号长度固定；
+ *      当天的序列号超出 sequenceLength 位时拒绝生成，不输出变长的单号。
+ *      每个业务类型持有自己的字符缓冲，前缀与日期段预先写入，只有跨天时才重新渲染日期；
+ *      序列号直接按位写入缓冲，除了最终返回的 String 之外不产生其它对象，代替 SimpleDateFormat + 字符串拼接
+ *
+ * @author Liuiie
+ * @since 2026/10/18 18:20
+ */
+public class FormattedIdGenerator {
+    /**
+     * 日期段长度，yyyyMMdd
+     */
+    private static final int DATE_LENGTH = 8;
+    /**
+     * long 的最大十进制位数
+     */
+    private static final int MAX_LONG_DIGITS = 19;
+
+    private final Map<String, KeyFormat> formats = new ConcurrentHashMap<>();
+
+    private final DailySequence defaultSequence;
+
+    private final TimeSource timeSource;
+
+    private final ZoneId zone;
+
+    /**
+     * 使用系统时钟与系统时区构造
+     *
+     * @param defaultSequence 未单独指定序列号来源的业务类型使用的按天序列号，如 {@link RedisDailySequence}
+     */
+    public FormattedIdGenerator(DailySequence defaultSequence) {
+        this(defaultSequence, TimeSource.SYSTEM, ZoneId.systemDefault());
+    }
+
+    /**
+     * 构造格式化ID生成器
+     *
+     * @param defaultSequence 未单独指定序列号来源的业务类型使用的按天序列号
+     * @param timeSource      日期段使用的时间源
+     * @param zone            日期段使用的时区，也决定序列号在什么时刻重置
+     */
+    public FormattedIdGenerator(DailySequence defaultSequence, TimeSource timeSource, ZoneId zone) {
+        if (timeSource == null || zone == null) {
+            throw new IllegalArgumentException("timeSource and zone must not be null");
+        }
+        this.defaultSequence = defaultSequence;
+        this.timeSource = timeSource;
+        this.zone = zone;
+    }
+
+    /**
+     * 注册业务类型，序列号取自默认的按天序列号
+     *
+     * @param bizType        业务类型
+     * @param prefix         单号前缀，如 ORD
+     * @param sequenceLength 序列号位数，不足左补0
+     */
+    public void register(String bizType, String prefix, int sequenceLength) {
+        register(bizType, prefix, defaultSequence, sequenceLength);
+    }
+
+    /**
+     * 注册业务类型
+     *
+     * @param bizType        业务类型
+     * @param prefix         单号前缀，如 ORD
+     * @param sequence       按天序列号
+     * @param sequenceLength 序列号位数，不足左补0；当天序列号超出该位数时生成失败
+     */
+    public void register(String bizType, String prefix, DailySequence sequence, int sequenceLength) {
+        if (bizType == null || prefix == null || sequence == null) {
+            throw new IllegalArgumentException("bizType, prefix and sequence must not be null");
+        }
+        if (sequenceLength <= 0 || sequenceLength >= MAX_LONG_DIGITS) {
+            throw new IllegalArgumentException("sequenceLength must be between 1 and " + (MAX_LONG_DIGITS - 1));
+        }
+        formats.put(bizType, new KeyFormat(bizType, prefix, sequence, sequenceLength));
+    }
+
+    /**
+     * 生成下一个格式化ID
+     *
+     * @param bizType 已注册的业务类型
+     * @return 前缀 + yyyyMMdd + 序列号
+     */
+    public String nextId(String bizType) {
+        return getFormat(bizType).next(this);
+    }
+
+    /**
+     * 生成下一个格式化ID并追加到调用方的 StringBuilder，连最终的 String 也不创建
+     *
+     * @param bizType 已注册的业务类型
+     * @param target  接收ID的 StringBuilder
+     * @return target
+     */
+    public StringBuilder nextId(String bizType, StringBuilder target) {
+        return getFormat(bizType).appendNext(this, target);
+    }
+
+    private KeyFormat getFormat(String bizType) {
+        KeyFormat format = formats.get(bizType);
+        if (format == null) {
+            throw new IllegalArgumentException("unregistered bizType: " + bizType);
+        }
+        return format;
+    }
+
+    /**
+     * 单个业务类型的格式状态：[前缀][yyyyMMdd][序列号]，由同一把锁保护
+     */
+    private static final class KeyFormat {
+        private final String bizType;
+
+        private final DailySequence sequence;
+
+        private final int sequenceLength;
+
+        /**
+         * sequenceLength 位能表示的最大序列号
+         */
+        private final long maxSequence;
+
+        private final char[] buffer;
+
+        /**
+         * 日期段在缓冲中的起始位置，即前缀长度
+         */
+        private final int dateOffset;
+
+        /**
+         * 当前日期段的有效区间 [dayStart, dayEnd)，初始为空区间，首次取号时渲染
+         */
+        private long dayStart = Long.MAX_VALUE;
+
+        private long dayEnd = Long.MIN_VALUE;
+
+        private LocalDate date;
+
+        private KeyFormat(String bizType, String prefix, DailySequence sequence, int sequenceLength) {
+            this.bizType = bizType;
+            this.sequence = sequence;
+            this.sequenceLength = sequenceLength;
+            long max = 1;
+            for (int i = 0; i < sequenceLength; i++) {
+                max *= 10;
+            }
+            this.maxSequence = max - 1;
+            this.dateOffset = prefix.length();
+            this.buffer = new char[dateOffset + DATE_LENGTH + sequenceLength];
+            prefix.getChars(0, dateOffset, buffer, 0);
+        }
+
+        private synchronized String next(FormattedIdGenerator generator) {
+            return new String(buffer, 0, render(generator));
+        }
+
+        private synchronized StringBuilder appendNext(FormattedIdGenerator generator, StringBuilder target) {
+            return target.append(buffer, 0, render(generator));
+        }
+
+        /**
+         * 把日期段与序列号写入缓冲
+         *
+         * @return 有效字符长度
+         */
+        private int render(FormattedIdGenerator generator) {
+            long now = generator.timeSource.currentTimeMillis();
+            if (now < dayStart || now >= dayEnd) {
+                renderDate(now, generator.zone);
+            }
+            renderSequence(sequence.next(bizType, date));
+            return buffer.length;
+        }
+
+        /**
+         * 跨天（或时钟回拨到前一天）时重新渲染日期段，并缓存这一天的毫秒区间
+         */
+        private void renderDate(long now, ZoneId zone) {
+            date = Instant.ofEpochMilli(now).atZone(zone).toLocalDate();
+            dayStart = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            dayEnd = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            int value = date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+            for (int i = dateOffset + DATE_LENGTH - 1; i >= dateOffset; i--) {
+                buffer[i] = (char) ('0' + value % 10);
+                value /= 10;
+            }
+        }
+
+        /**
+         * 从右往左写入序列号，不足 sequenceLength 位时左补0
+         */
+        private void renderSequence(long value) {
+            if (value < 0 || value > maxSequence) {
+                throw new IllegalStateException("业务类型: " + bizType + " 在 " + date + " 的序列号 " + value
+                        + " 超出 " + sequenceLength + " 位");
+            }
+            long v = value;
+            for (int pos = buffer.length - 1; pos >= dateOffset + DATE_LENGTH; pos--) {
+                buffer[pos] = (char) ('0' + (int) (v % 10));
+                v /= 10;
+            }
+        }
+    }
+}
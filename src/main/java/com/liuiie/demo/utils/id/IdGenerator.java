@@ -0,0 +1,50 @@
+package com.liuiie.demo.utils.id;
+
+/**
+ * ID生成器
+ *      雪花算法与号段模式共用的接口，调用方可以按业务选择实现
+ *
+ * @author Liuiie
+ * @since 2026/10/18 16:30
+ */
+public interface IdGenerator {
+    /**
+     * 生成下一个唯一的ID
+     *
+     * @return 下一个唯一的ID
+     */
+    long nextId();
+
+    /**
+     * 批量生成ID并写入数组的指定区间
+     *
+     * @param ids    用于接收ID的数组
+     * @param offset 起始下标
+     * @param length 需要的ID数量
+     */
+    void nextIdBlock(long[] ids, int offset, int length);
+
+    /**
+     * 批量生成ID并填满调用方提供的数组
+     *
+     * @param ids 用于接收ID的数组
+     */
+    default void nextIdBlock(long[] ids) {
+        nextIdBlock(ids, 0, ids.length);
+    }
+
+    /**
+     * 批量生成ID
+     *
+     * @param n 需要的ID数量
+     * @return 按生成顺序递增的ID数组
+     */
+    default long[] nextIds(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative");
+        }
+        long[] ids = new long[n];
+        nextIdBlock(ids, 0, n);
+        return ids;
+    }
+}
@@ -0,0 +1,70 @@
+package com.liuiie.demo.utils.id;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntConsumer;
+
+/**
+ * 基于内存的 workerId 租约管理
+ *      用于单元测试或单机部署，共用同一个槽位表的多个实例可以模拟多个节点
+ *
+ * @author Liuiie
+ * @since 2026/10/18 13:35
+ */
+public class LocalWorkerIdLeaseManager implements WorkerIdLeaseManager {
+    /**
+     * 默认的进程内共享槽位表
+     */
+    private static final ConcurrentMap<Integer, String> SHARED_SLOTS = new ConcurrentHashMap<>();
+
+    /**
+     * workerId 与持有者标识的对应关系
+     */
+    private final ConcurrentMap<Integer, String> slots;
+
+    /**
+     * 持有者标识
+     */
+    private final String owner = UUID.randomUUID().toString();
+
+    private volatile int workerId = -1;
+
+    public LocalWorkerIdLeaseManager() {
+        this(SHARED_SLOTS);
+    }
+
+    public LocalWorkerIdLeaseManager(ConcurrentMap<Integer, String> slots) {
+        this.slots = slots;
+    }
+
+    @Override
+    public synchronized int acquire(int workerIdCount, IntConsumer reassignListener) {
+        if (workerIdCount <= 0) {
+            throw new IllegalArgumentException("workerIdCount must be positive");
+        }
+        if (workerId >= 0) {
+            return workerId;
+        }
+        for (int i = 0; i < workerIdCount; i++) {
+            if (slots.putIfAbsent(i, owner) == null) {
+                workerId = i;
+                return i;
+            }
+        }
+        throw new IllegalStateException("没有空闲的workerId");
+    }
+
+    @Override
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    @Override
+    public synchronized void release() {
+        if (workerId >= 0) {
+            slots.remove(workerId, owner);
+            workerId = -1;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.liuiie.demo.utils.id;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于 Redis INCRBY 的按天序列号，每个 (业务类型, 日期) 对应一个 key，所有实例共用同一个计数。
+ *      step 大于 1 时每次往返预留 step 个连续序列号在本地发放：减少往返，但实例重启会跳过未用完的号，
+ *      多个实例之间的序列号也不再按时间先后递增；step 为 1 时每个序列号一次往返，严格连续。
+ *      key 在首次递增时设置两天的有效期，过期的日期不再占用内存
+ *
+ * @author Liuiie
+ * @since 2026/10/18 23:15
+ */
+public class RedisDailySequence implements DailySequence {
+    /**
+     * 序列号 key 的前缀，后接 业务类型_yyyyMMdd
+     */
+    public static final String KEY_PREFIX = "ID_DAILY_SEQUENCE_";
+
+    /**
+     * key 的有效期（秒），比一天略长，跨天前后的请求仍能读到前一天的计数
+     */
+    private static final long KEY_TTL_SECONDS = 2 * 24 * 3600L;
+
+    /**
+     * 递增 ARGV[1] 并返回递增后的值，key 还没有过期时间时顺带设置，一次往返完成
+     */
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local value = redis.call('INCRBY', KEYS[1], ARGV[1]);" +
+                    "if redis.call('TTL', KEYS[1]) == -1 then redis.call('EXPIRE', KEYS[1], ARGV[2]) end;" +
+                    "return value", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final int step;
+
+    private final Map<String, Range> ranges = new ConcurrentHashMap<>();
+
+    /**
+     * 构造严格连续的按天序列号，每个序列号一次往返
+     *
+     * @param redisTemplate Redis 操作模板
+     */
+    public RedisDailySequence(StringRedisTemplate redisTemplate) {
+        this(redisTemplate, 1);
+    }
+
+    /**
+     * 构造按天序列号
+     *
+     * @param redisTemplate Redis 操作模板
+     * @param step          每次往返预留的序列号个数
+     */
+    public RedisDailySequence(StringRedisTemplate redisTemplate, int step) {
+        if (redisTemplate == null) {
+            throw new IllegalArgumentException("redisTemplate must not be null");
+        }
+        if (step <= 0) {
+            throw new IllegalArgumentException("step must be positive");
+        }
+        this.redisTemplate = redisTemplate;
+        this.step = step;
+    }
+
+    @Override
+    public long next(String bizType, LocalDate date) {
+        Range range = ranges.computeIfAbsent(bizType, key -> new Range());
+        synchronized (range) {
+            if (!date.equals(range.date) || range.next > range.max) {
+                long max = increment(bizType, date);
+                range.date = date;
+                range.next = max - step + 1;
+                range.max = max;
+            }
+            return range.next++;
+        }
+    }
+
+    private long increment(String bizType, LocalDate date) {
+        String key = KEY_PREFIX + bizType + "_" + date.format(DateTimeFormatter.BASIC_ISO_DATE);
+        Long result = redisTemplate.execute(INCREMENT_SCRIPT, Collections.singletonList(key),
+                String.valueOf(step), String.valueOf(KEY_TTL_SECONDS));
+        if (result == null) {
+            throw new IllegalStateException("申请序列号未返回结果: " + key);
+        }
+        return result;
+    }
+
+    /**
+     * 本地预留的序列号区间 [next, max]，date 为区间所属的日期
+     */
+    private static final class Range {
+        private LocalDate date;
+
+        private long next = 1;
+
+        private long max;
+    }
+}
@@ -0,0 +1,245 @@
+package com.liuiie.demo.utils.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * 基于 Redis 的 workerId 租约管理。
+ *      每个 workerId 对应一个带过期时间的 key，申请时用一段 Lua 脚本在一次往返内找到并占用第一个空闲槽位；
+ *      后台心跳按有效期的三分之一续期，续期失败说明租约已丢失，会重新申请并通知调用方。
+ *      续期请求发生异常时保留当前 workerId，但从上次续期成功起超过有效期仍未续上时，Redis 中的 key 已经过期，
+ *      其他实例可能占用同一个槽位，此时隔离生成器（workerId 置为 -1 并通知调用方），由心跳继续重新申请。
+ *      脚本在 Lua 中拼接 key，只适用于单机或主从部署的 Redis
+ *
+ * @author Liuiie
+ * @since 2026/10/18 13:50
+ */
+@Slf4j
+public class RedisWorkerIdLeaseManager implements WorkerIdLeaseManager {
+    /**
+     * 租约 key 的前缀，后接 workerId
+     */
+    public static final String KEY_PREFIX = "SNOWFLAKE_WORKER_ID_";
+
+    /**
+     * 从随机位置 ARGV[3] 开始在 ARGV[4] 个槽位中依次尝试占用，返回占用到的 workerId，全部被占用时返回 -1
+     */
+    private static final DefaultRedisScript<Long> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "local max = tonumber(ARGV[4]);" +
+                    "for i = 0, max - 1 do " +
+                    "local id = (tonumber(ARGV[3]) + i) % max;" +
+                    "if redis.call('SET', KEYS[1] .. id, ARGV[1], 'NX', 'PX', ARGV[2]) then return id end " +
+                    "end;" +
+                    "return -1", Long.class);
+
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * 租约有效期（毫秒）
+     */
+    private final long ttlMillis;
+
+    private final long ttlNanos;
+
+    /**
+     * 持有者标识：主机名 + 随机串，同一主机上的多个进程互不冲突
+     */
+    private final String owner;
+
+    private final ScheduledExecutorService heartbeat;
+
+    private volatile int workerId = -1;
+
+    private volatile IntConsumer reassignListener;
+
+    /**
+     * workerId 的取值个数，申请时由位布局传入，重新申请时沿用
+     */
+    private int workerIdCount;
+
+    private ScheduledFuture<?> heartbeatFuture;
+
+    /**
+     * 当前租约的最早过期时间（System.nanoTime），取发出续期请求前的时间，比 Redis 中的实际过期时间早
+     */
+    private long leaseDeadlineNanos;
+
+    /**
+     * 释放后不能再次申请
+     */
+    private boolean closed;
+
+    /**
+     * 构造租约管理器
+     *
+     * @param redisTemplate Redis 操作模板
+     * @param ttl           租约有效期
+     * @param timeUnit      有效期单位
+     */
+    public RedisWorkerIdLeaseManager(StringRedisTemplate redisTemplate, long ttl, TimeUnit timeUnit) {
+        if (redisTemplate == null) {
+            throw new IllegalArgumentException("redisTemplate must not be null");
+        }
+        this.ttlMillis = timeUnit.toMillis(ttl);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        if (ttlMillis < 3) {
+            throw new IllegalArgumentException("ttl must be at least 3 milliseconds");
+        }
+        this.redisTemplate = redisTemplate;
+        this.owner = getHostName() + ":" + UUID.randomUUID();
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snowflake-worker-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public synchronized int acquire(int workerIdCount, IntConsumer reassignListener) {
+        if (workerIdCount <= 0) {
+            throw new IllegalArgumentException("workerIdCount must be positive");
+        }
+        if (closed) {
+            throw new IllegalStateException("workerId 租约管理器已释放，不能再次申请");
+        }
+        if (workerId >= 0) {
+            return workerId;
+        }
+        this.reassignListener = reassignListener;
+        this.workerIdCount = workerIdCount;
+        long start = System.nanoTime();
+        workerId = claim();
+        leaseDeadlineNanos = start + ttlNanos;
+        long period = ttlMillis / 3;
+        heartbeatFuture = heartbeat.scheduleAtFixedRate(this::renew, period, period, TimeUnit.MILLISECONDS);
+        log.info("申请到雪花算法workerId: {}", workerId);
+        return workerId;
+    }
+
+    @Override
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    @Override
+    public synchronized void release() {
+        closed = true;
+        if (heartbeatFuture != null) {
+            heartbeatFuture.cancel(false);
+            heartbeatFuture = null;
+        }
+        heartbeat.shutdown();
+        int current = workerId;
+        workerId = -1;
+        if (current >= 0) {
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT, keyOf(current), owner);
+                log.info("释放雪花算法workerId: {}", current);
+            } catch (Exception e) {
+                log.error("释放雪花算法workerId: {} 时发生异常", current, e);
+            }
+        }
+    }
+
+    /**
+     * 心跳续期，租约丢失时立即隔离并重新申请，已隔离时继续重新申请
+     */
+    private synchronized void renew() {
+        if (closed) {
+            return;
+        }
+        int current = workerId;
+        long start = System.nanoTime();
+        try {
+            if (current < 0) {
+                reassign(start);
+                return;
+            }
+            Long result = redisTemplate.execute(RENEW_SCRIPT, keyOf(current), owner, String.valueOf(ttlMillis));
+            if (result != null && result > 0) {
+                leaseDeadlineNanos = start + ttlNanos;
+                return;
+            }
+            // key 已不属于自己，不能再用当前 workerId 生成
+            fence(current);
+            reassign(start);
+        } catch (Exception e) {
+            // 网络抖动时在有效期内保留当前 workerId，等待下次心跳
+            log.error("雪花算法workerId: {} 续期或重新申请时发生异常", current, e);
+            fenceIfExpired();
+        }
+    }
+
+    private void reassign(long start) {
+        int previous = workerId;
+        workerId = claim();
+        leaseDeadlineNanos = start + ttlNanos;
+        log.error("雪花算法workerId: {} 的租约已丢失，重新申请到: {}", previous, workerId);
+        reassignListener.accept(workerId);
+    }
+
+    /**
+     * 租约已过期时隔离，否则在过期时刻再检查一次，不依赖心跳的调度间隔
+     */
+    private synchronized void fenceIfExpired() {
+        int current = workerId;
+        if (closed || current < 0) {
+            return;
+        }
+        long remaining = leaseDeadlineNanos - System.nanoTime();
+        if (remaining <= 0) {
+            fence(current);
+        } else {
+            heartbeat.schedule(this::fenceIfExpired, remaining, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void fence(int current) {
+        workerId = -1;
+        log.error("雪花算法workerId: {} 的租约已失效，暂停生成ID直到重新申请成功", current);
+        reassignListener.accept(-1);
+    }
+
+    private int claim() {
+        int start = ThreadLocalRandom.current().nextInt(workerIdCount);
+        Long result = redisTemplate.execute(CLAIM_SCRIPT, Collections.singletonList(KEY_PREFIX),
+                owner, String.valueOf(ttlMillis), String.valueOf(start), String.valueOf(workerIdCount));
+        if (result == null || result < 0) {
+            throw new IllegalStateException("没有空闲的workerId");
+        }
+        return result.intValue();
+    }
+
+    private static List<String> keyOf(int workerId) {
+        return Collections.singletonList(KEY_PREFIX + workerId);
+    }
+
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
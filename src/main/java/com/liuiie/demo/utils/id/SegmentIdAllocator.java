@@ -0,0 +1,157 @@
+package com.liuiie.demo.utils.id;
+
+import com.liuiie.demo.utils.datasource.DynamicDataSourceContextHolder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 号段模式ID分配器（参考美团 Leaf-segment）
+ *      每个业务标识在数据库中维护当前已分配的最大ID，一次取出 step 个连续ID在内存中发放，
+ *      当前号段剩余 10% 时异步预取下一个号段。依赖的表结构：
+ * <pre>
+ * CREATE TABLE id_segment (
+ *     biz_tag     VARCHAR(128) NOT NULL PRIMARY KEY COMMENT '业务标识',
+ *     max_id      BIGINT       NOT NULL DEFAULT 0 COMMENT '已分配的最大ID',
+ *     update_time TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+ * );
+ * </pre>
+ *
+ * @author Liuiie
+ * @since 2026/10/18 16:45
+ */
+@Slf4j
+public class SegmentIdAllocator {
+    /**
+     * 默认表名
+     */
+    public static final String DEFAULT_TABLE = "id_segment";
+
+    /**
+     * 默认号段长度
+     */
+    public static final int DEFAULT_STEP = 1000;
+
+    /**
+     * MySQL 没有 UPDATE ... RETURNING，借助 LAST_INSERT_ID(expr) 把更新后的值放进 OK 包，
+     * 通过 getGeneratedKeys 读取，整个申请只需一次往返
+     */
+    private static final String UPDATE_SQL = "UPDATE %s SET max_id = LAST_INSERT_ID(max_id + ?) WHERE biz_tag = ?";
+
+    private final DataSource dataSource;
+
+    /**
+     * 动态数据源的数据源名称，为空时使用默认数据源
+     */
+    private final String dataSourceType;
+
+    private final String updateSql;
+
+    private final int step;
+
+    private final ExecutorService prefetchExecutor;
+
+    private final ConcurrentMap<String, SegmentIdGenerator> generators = new ConcurrentHashMap<>();
+
+    public SegmentIdAllocator(DataSource dataSource) {
+        this(dataSource, null, DEFAULT_TABLE, DEFAULT_STEP);
+    }
+
+    /**
+     * 构造号段分配器
+     *
+     * @param dataSource     数据源，通常是 DynamicDataSource
+     * @param dataSourceType 动态数据源中的数据源名称，参考 DataSourceType，为空时使用默认数据源
+     * @param table          号段表名
+     * @param step           号段长度
+     */
+    public SegmentIdAllocator(DataSource dataSource, String dataSourceType, String table, int step) {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("dataSource must not be null");
+        }
+        if (step < 10) {
+            throw new IllegalArgumentException("step must be at least 10");
+        }
+        if (table == null || !table.matches("\\w+")) {
+            throw new IllegalArgumentException("illegal table name: " + table);
+        }
+        this.dataSource = dataSource;
+        this.dataSourceType = dataSourceType;
+        this.updateSql = String.format(UPDATE_SQL, table);
+        this.step = step;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.prefetchExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "segment-id-prefetch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 获取业务标识对应的ID生成器，同一业务标识共用一个生成器
+     *
+     * @param bizTag 业务标识
+     * @return ID生成器
+     */
+    public IdGenerator get(String bizTag) {
+        return generators.computeIfAbsent(bizTag, tag -> new SegmentIdGenerator(this, tag, step));
+    }
+
+    /**
+     * 停止预取线程
+     */
+    public void shutdown() {
+        prefetchExecutor.shutdown();
+    }
+
+    ExecutorService getPrefetchExecutor() {
+        return prefetchExecutor;
+    }
+
+    /**
+     * 从数据库申请一个号段
+     *
+     * @param bizTag 业务标识
+     * @return 号段最后一个ID，号段为 [返回值 - step + 1, 返回值]
+     */
+    long allocate(String bizTag) {
+        String previous = DynamicDataSourceContextHolder.getDataSourceType();
+        if (dataSourceType != null) {
+            DynamicDataSourceContextHolder.setDataSourceType(dataSourceType);
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(updateSql, Statement.RETURN_GENERATED_KEYS)) {
+            statement.setLong(1, step);
+            statement.setString(2, bizTag);
+            if (statement.executeUpdate() == 0) {
+                throw new IllegalStateException("号段表中不存在业务标识: " + bizTag);
+            }
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new IllegalStateException("申请号段未返回结果: " + bizTag);
+                }
+                long maxId = keys.getLong(1);
+                log.debug("业务标识: {} 申请到号段 [{}, {}]", bizTag, maxId - step + 1, maxId);
+                return maxId;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("申请号段失败: " + bizTag, e);
+        } finally {
+            if (previous != null) {
+                DynamicDataSourceContextHolder.setDataSourceType(previous);
+            } else {
+                DynamicDataSourceContextHolder.clearDataSourceType();
+            }
+        }
+    }
+}
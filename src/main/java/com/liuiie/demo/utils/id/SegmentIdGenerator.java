@@ -0,0 +1,143 @@
+package com.liuiie.demo.utils.id;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个业务标识的号段ID生成器
+ *      双缓冲：当前号段在内存中用 CAS 发放，剩余不足 10% 时异步预取下一个号段，
+ *      当前号段用完时直接切换，预取尚未完成则等待，预取失败则同步申请
+ *
+ * @author Liuiie
+ * @since 2026/10/18 17:05
+ */
+class SegmentIdGenerator implements IdGenerator {
+    private final SegmentIdAllocator allocator;
+
+    private final String bizTag;
+
+    private final int step;
+
+    /**
+     * 剩余数量不大于该值时预取下一个号段
+     */
+    private final long prefetchThreshold;
+
+    private volatile Segment current;
+
+    /**
+     * 正在预取或已预取好的下一个号段
+     */
+    private volatile CompletableFuture<Segment> next;
+
+    SegmentIdGenerator(SegmentIdAllocator allocator, String bizTag, int step) {
+        this.allocator = allocator;
+        this.bizTag = bizTag;
+        this.step = step;
+        this.prefetchThreshold = step / 10;
+        // 首次使用前为空号段，第一次取号时同步申请
+        this.current = new Segment(0L, -1L);
+    }
+
+    @Override
+    public long nextId() {
+        for (;;) {
+            Segment segment = current;
+            long id = segment.cursor.getAndIncrement();
+            if (id <= segment.max) {
+                if (segment.max - id == prefetchThreshold) {
+                    prefetch(segment);
+                }
+                return id;
+            }
+            switchSegment(segment);
+        }
+    }
+
+    @Override
+    public void nextIdBlock(long[] ids, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > ids.length) {
+            throw new IndexOutOfBoundsException(String.format("offset: %d, length: %d, size: %d", offset, length, ids.length));
+        }
+        int filled = 0;
+        while (filled < length) {
+            Segment segment = current;
+            int want = length - filled;
+            long first = segment.cursor.getAndAdd(want);
+            long available = Math.min(want, segment.max - first + 1);
+            for (int i = 0; i < available; i++) {
+                ids[offset + filled + i] = first + i;
+            }
+            if (available > 0) {
+                filled += (int) available;
+                long remaining = segment.max - (first + available - 1);
+                if (remaining <= prefetchThreshold) {
+                    prefetch(segment);
+                }
+            }
+            if (filled < length) {
+                switchSegment(segment);
+            }
+        }
+    }
+
+    /**
+     * 为 segment 之后的号段发起预取。
+     *      取号线程可能在切换之后才根据旧号段的余量调用，此时 segment 已不是当前号段，
+     *      新号段余量还很多，不能再次预取
+     *
+     * @param segment 调用方取号所用的号段
+     */
+    private void prefetch(Segment segment) {
+        if (next == null && current == segment) {
+            synchronized (this) {
+                if (next == null && current == segment) {
+                    next = CompletableFuture.supplyAsync(this::load, allocator.getPrefetchExecutor());
+                }
+            }
+        }
+    }
+
+    /**
+     * 用完的号段切换到下一个号段，只有第一个发现用完的线程执行切换
+     *
+     * @param exhausted 已用完的号段
+     */
+    private synchronized void switchSegment(Segment exhausted) {
+        if (current != exhausted) {
+            return;
+        }
+        CompletableFuture<Segment> future = next;
+        next = null;
+        Segment segment = null;
+        if (future != null) {
+            try {
+                segment = future.join();
+            } catch (CompletionException e) {
+                // 预取失败时同步重试一次
+                segment = null;
+            }
+        }
+        current = segment != null ? segment : load();
+    }
+
+    private Segment load() {
+        long max = allocator.allocate(bizTag);
+        return new Segment(max - step + 1, max);
+    }
+
+    /**
+     * 号段：[cursor 初始值, max]
+     */
+    private static final class Segment {
+        private final AtomicLong cursor;
+
+        private final long max;
+
+        private Segment(long start, long max) {
+            this.cursor = new AtomicLong(start);
+            this.max = max;
+        }
+    }
+}
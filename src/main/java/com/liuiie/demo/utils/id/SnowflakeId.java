@@ -0,0 +1,33 @@
+package com.liuiie.demo.utils.id;
+
+import lombok.Data;
+
+/**
+ * 雪花算法ID解码结果
+ *      可在循环中复用同一个实例，配合 {@link SnowflakeLayout#decode(long, SnowflakeId)} 避免分配
+ *
+ * @author Liuiie
+ * @since 2026/10/18 15:55
+ */
+@Data
+public class SnowflakeId {
+    /**
+     * 毫秒时间戳（绝对时间）
+     */
+    private long timestamp;
+
+    /**
+     * 数据中心ID
+     */
+    private long datacenterId;
+
+    /**
+     * 机器ID
+     */
+    private long workerId;
+
+    /**
+     * 毫秒内序列号
+     */
+    private long sequence;
+}
@@ -9,6 +9,9 @@ import java.net.UnknownHostException;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 雪花算法id工具
@@ -16,41 +19,196 @@ import java.util.Date;
  * @author Liuiie
  * @since 2025/1/15 17:31
  */
-public class SnowflakeIdUtil {
+public class SnowflakeIdUtil implements IdGenerator {
     /**
-     * 业务系统上线的时间 2024-10-01 0:0:0，41位最多可以表示约69.7年
+     * 位布局，默认 41位时间戳 / 10位机器ID / 12位序列号，纪元为 2024-10-01 0:0:0，41位最多可以表示约69.7年
      */
-    private static final long twepoch = 1727712000000L;
+    private final SnowflakeLayout layout;
     /**
-     * 毫秒内序列
+     * 纪元，等于 layout.getEpoch()
      */
-    private long sequence = 0L;
+    private final long epoch;
     /**
-     * 机器ID
+     * 序列号位数，等于 layout.getSequenceBits()
      */
-    private int workerId;
+    private final int sequenceBits;
     /**
-     * 上次生成ID的时间戳
+     * 序列号掩码，默认 4095
      */
-    private long lastTimestamp = -1L;
+    private final long sequenceMask;
+    /**
+     * 数据中心ID
+     */
+    private final int datacenterId;
+    /**
+     * 生成状态：高位为上次生成ID的时间戳（相对纪元），低位为毫秒内序列。
+     * 两者打包在同一个 AtomicLong 中，才能用一次 CAS 同时推进
+     */
+    private final AtomicLong state = new AtomicLong(0L);
+    /**
+     * 是否正处于时钟回拨中，用于区分一次回拨的开始与结束
+     */
+    private final AtomicBoolean clockBackwards = new AtomicBoolean(false);
+    /**
+     * 时钟回拨发生的次数
+     */
+    private final AtomicLong clockBackwardsEvents = new AtomicLong();
+    /**
+     * 观测到的最大回拨毫秒数
+     */
+    private final AtomicLong maxClockBackwardsMillis = new AtomicLong();
+    /**
+     * 回拨期间基于逻辑时钟生成的次数
+     */
+    private final LongAdder clockBackwardsGenerations = new LongAdder();
+    /**
+     * 机器ID，租约失效被隔离时为 -1，此时拒绝生成
+     */
+    private volatile int workerId;
+    /**
+     * 数据中心ID与机器ID组合后的中间位，随 workerId 一起更新
+     */
+    private volatile long nodeBits;
+    /**
+     * 时间源，默认直接读取系统时钟
+     */
+    private volatile TimeSource timeSource = TimeSource.SYSTEM;
+    /**
+     * 生成模式，默认沿用加锁方式
+     */
+    private volatile GenerateMode generateMode = GenerateMode.SYNCHRONIZED;
 
     private volatile static SnowflakeIdUtil instance = null;
 
     public void setWorkerId(int workerId) {
-        if (workerId > 1023 || workerId < 0) {
-            throw new IllegalArgumentException("workerId must be between 0 and 1023");
+        if (workerId > layout.getMaxWorkerId() || workerId < 0) {
+            throw new IllegalArgumentException("workerId must be between 0 and " + layout.getMaxWorkerId());
         }
         this.workerId = workerId;
+        this.nodeBits = layout.nodeBits(datacenterId, workerId);
     }
 
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    public int getDatacenterId() {
+        return datacenterId;
+    }
+
+    public SnowflakeLayout getLayout() {
+        return layout;
+    }
 
     /**
-     * SnowflakeIdUtil 类的构造函数
+     * 通过租约申请 workerId，只在当前位布局的机器ID范围内申请；租约丢失重新分配后自动切换到新的 workerId，
+     * 租约失效而尚未重新分配期间生成ID会抛出 IllegalStateException
      *
-     * @throws IllegalArgumentException 如果传入的 workerId 或 datacenterId 不在 0 到 31 的范围内，则抛出此异常
+     * @param leaseManager workerId 租约管理
+     */
+    public void useWorkerIdLease(WorkerIdLeaseManager leaseManager) {
+        setWorkerId(leaseManager.acquire((int) Math.min(layout.getMaxWorkerId() + 1, Integer.MAX_VALUE), this::onLeaseChanged));
+    }
+
+    private void onLeaseChanged(int workerId) {
+        if (workerId < 0) {
+            this.workerId = -1;
+        } else {
+            setWorkerId(workerId);
+        }
+    }
+
+    /**
+     * 租约失效被隔离时拒绝生成，避免与占用同一槽位的其他实例生成重复ID
+     */
+    private void checkWorkerId() {
+        if (workerId < 0) {
+            throw new IllegalStateException("workerId 租约已失效，等待重新申请");
+        }
+    }
+
+    public TimeSource getTimeSource() {
+        return timeSource;
+    }
+
+    /**
+     * 切换时间源，例如高并发场景下使用 {@link CachedClockTimeSource#getInstance()}
+     *
+     * @param timeSource 时间源
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        if (timeSource == null) {
+            throw new IllegalArgumentException("timeSource must not be null");
+        }
+        this.timeSource = timeSource;
+    }
+
+    public GenerateMode getGenerateMode() {
+        return generateMode;
+    }
+
+    /**
+     * 切换生成模式，两种模式共用同一份状态，运行期切换也不会产生重复ID
+     *
+     * @param generateMode 生成模式
+     */
+    public void setGenerateMode(GenerateMode generateMode) {
+        if (generateMode == null) {
+            throw new IllegalArgumentException("generateMode must not be null");
+        }
+        this.generateMode = generateMode;
+    }
+
+    /**
+     * SnowflakeIdUtil 类的构造函数，使用默认布局，workerId 由IP生成
      */
     private SnowflakeIdUtil() {
-        workerId = getWorkId();
+        this(SnowflakeLayout.DEFAULT, 0, getWorkId());
+    }
+
+    /**
+     * 指定 workerId 构造独立实例，仅供同包内测试使用
+     *
+     * @param workerId 机器ID
+     */
+    SnowflakeIdUtil(int workerId) {
+        this(SnowflakeLayout.DEFAULT, 0, workerId);
+    }
+
+    /**
+     * 按指定布局构造实例
+     *
+     * @param layout       位布局
+     * @param datacenterId 数据中心ID
+     * @param workerId     机器ID
+     * @throws IllegalArgumentException 如果传入的 workerId 或 datacenterId 超出布局允许的范围，则抛出此异常
+     */
+    private SnowflakeIdUtil(SnowflakeLayout layout, int datacenterId, int workerId) {
+        if (datacenterId > layout.getMaxDatacenterId() || datacenterId < 0) {
+            throw new IllegalArgumentException("datacenterId must be between 0 and " + layout.getMaxDatacenterId());
+        }
+        this.layout = layout;
+        this.epoch = layout.getEpoch();
+        this.sequenceBits = layout.getSequenceBits();
+        this.sequenceMask = layout.getSequenceMask();
+        this.datacenterId = datacenterId;
+        setWorkerId(workerId);
+    }
+
+    /**
+     * 按指定布局创建独立的生成器，例如多数据中心部署或以机器ID位换取更多序列号位。
+     *      同一进程内不要让多个实例使用相同的数据中心ID和机器ID
+     *
+     * @param layout       位布局
+     * @param datacenterId 数据中心ID
+     * @param workerId     机器ID
+     * @return 新的生成器
+     */
+    public static SnowflakeIdUtil create(SnowflakeLayout layout, int datacenterId, int workerId) {
+        if (layout == null) {
+            throw new IllegalArgumentException("layout must not be null");
+        }
+        return new SnowflakeIdUtil(layout, datacenterId, workerId);
     }
 
 
@@ -76,7 +234,7 @@ public class SnowflakeIdUtil {
      *
      * @return workId
      */
-    private int getWorkId() {
+    private static int getWorkId() {
         try {
             InetAddress hostAddress = InetAddress.getLocalHost();
             int[] ints = StringUtils.toCodePoints(hostAddress.getHostAddress());
@@ -93,79 +251,275 @@ public class SnowflakeIdUtil {
     }
 
     /**
-     * 生成下一个唯一的ID
+     * 生成下一个唯一的ID，按当前的生成模式选择加锁或无锁方式
      *
      * @return 下一个唯一的ID
-     * @throws RuntimeException 如果系统时钟回退，则抛出RuntimeException异常
      */
-    public synchronized long nextId() {
-        // 获取时间戳
-        long now = getTimestamp();
-        // 时钟回退处理：如果当前时间小于上一次ID生成的时间戳
-        if (now < lastTimestamp) {
-            // 最多支持1.5秒以内的回拨（1500毫秒），否则抛出异常
-            long offset = lastTimestamp - now;
-            if (offset <= 1500) {
-                try {
-                    // 等待2两倍的时间
-                    offset = offset << 2;
-                    Thread.sleep(offset);
-                    now = getTimestamp();
-                    // 还是小，抛异常
-                    if (now < lastTimestamp) {
-                        throw new RuntimeException(String.format("时钟回拨，无法生成ID %d milliseconds", lastTimestamp - now));
-                    }
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
+    @Override
+    public long nextId() {
+        if (generateMode == GenerateMode.LOCK_FREE) {
+            return nextIdLockFree();
+        }
+        return nextIdSynchronized();
+    }
+
+    /**
+     * 加锁方式生成ID，所有线程在同一个监视器上串行
+     *
+     * @return 下一个唯一的ID
+     */
+    public synchronized long nextIdSynchronized() {
+        return generate();
+    }
+
+    /**
+     * 无锁方式生成ID，通过 CAS 推进打包后的时间戳与序列号
+     *
+     * @return 下一个唯一的ID
+     */
+    public long nextIdLockFree() {
+        return generate();
+    }
+
+    /**
+     * 批量生成ID并写入数组的指定区间。
+     *      每次按毫秒预留一段连续的序列号，单毫秒最多4096个，1万个ID只需要预留3次左右；
+     *      加锁模式下整个批次只获取一次锁
+     *
+     * @param ids    用于接收ID的数组
+     * @param offset 起始下标
+     * @param length 需要的ID数量
+     */
+    @Override
+    public void nextIdBlock(long[] ids, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > ids.length) {
+            throw new IndexOutOfBoundsException(String.format("offset: %d, length: %d, size: %d", offset, length, ids.length));
+        }
+        if (generateMode == GenerateMode.LOCK_FREE) {
+            fillBlock(ids, offset, length);
+        } else {
+            fillBlockSynchronized(ids, offset, length);
+        }
+    }
+
+    private synchronized void fillBlockSynchronized(long[] ids, int offset, int length) {
+        fillBlock(ids, offset, length);
+    }
+
+    private void fillBlock(long[] ids, int offset, int length) {
+        checkWorkerId();
+        int filled = 0;
+        while (filled < length) {
+            filled += reserve(ids, offset + filled, length - filled);
+        }
+    }
+
+    /**
+     * 在当前毫秒内一次性预留一段连续序列号并写入数组
+     *
+     * @param ids    用于接收ID的数组
+     * @param offset 起始下标
+     * @param length 最多需要的ID数量
+     * @return 实际写入的ID数量，受当前毫秒剩余序列号限制
+     */
+    private int reserve(long[] ids, int offset, int length) {
+        for (;;) {
+            long current = state.get();
+            long lastTimestamp = (current >>> sequenceBits) + epoch;
+            long wall = getTimestamp();
+            long now = currentMillis(lastTimestamp, wall);
+            long first = 0;
+            if (lastTimestamp == now) {
+                first = (current & sequenceMask) + 1;
+                // 当前毫秒的序列号已用完，进入下一毫秒
+                if (first > sequenceMask) {
+                    now = nextMillis(lastTimestamp);
+                    first = 0;
                 }
             }
+            int count = (int) Math.min(length, sequenceMask + 1 - first);
+            long last = first + count - 1;
+            if (state.compareAndSet(current, (checkTimestamp(now) << sequenceBits) | last)) {
+                recordLogicalClockGeneration(wall, lastTimestamp);
+                long base = ((now - epoch) << layout.getTimestampShift()) | nodeBits;
+                for (int i = 0; i < count; i++) {
+                    ids[offset + i] = base | (first + i);
+                }
+                return count;
+            }
         }
-        // 如果是同一时间生成的，则进行毫秒内序列
-        if (lastTimestamp == now) {
-            // 毫秒级顺序号，使用掩码4095取低12位的数，限制自增取值在1~4095之间，（掩码4095表示二进制12位均为1的值，即：1111 1111 1111）
-            sequence = (sequence + 1) & 4095;
-            // 溢出
-            if (sequence == 0) {
-                // 毫秒内序列溢出，等待到下一毫秒再继续
-                now = getNextMillis(now);
+    }
+
+    /**
+     * 基于 CAS 的生成逻辑。
+     *      加锁模式下同一时刻只有一个线程进入，CAS 一次即成功；无锁模式下竞争失败的线程重新读取状态后重试
+     *
+     * @return 下一个唯一的ID
+     */
+    private long generate() {
+        checkWorkerId();
+        for (;;) {
+            long current = state.get();
+            long lastTimestamp = (current >>> sequenceBits) + epoch;
+            long sequence = current & sequenceMask;
+            // 获取时间戳，时钟回拨时沿用上次的时间戳
+            long wall = getTimestamp();
+            long now = currentMillis(lastTimestamp, wall);
+            // 如果是同一时间生成的，则进行毫秒内序列
+            if (lastTimestamp == now) {
+                // 毫秒级顺序号，默认布局下使用掩码4095取低12位的数（掩码4095表示二进制12位均为1的值，即：1111 1111 1111）
+                sequence = (sequence + 1) & sequenceMask;
+                // 溢出
+                if (sequence == 0) {
+                    // 毫秒内序列溢出，进入下一毫秒再继续
+                    now = nextMillis(lastTimestamp);
+                }
+            } else {
+                // 时间不同了，序列号置0
+                sequence = 0;
             }
-        } else {
-            // 置0之前，序列号在同一时间并发后自增到这里说明时间不同了，版本号所以置0
-            sequence = 0;
+            long next = (checkTimestamp(now) << sequenceBits) | sequence;
+            if (state.compareAndSet(current, next)) {
+                recordLogicalClockGeneration(wall, lastTimestamp);
+                /*
+                 * 长度64位，默认布局下：
+                 * 1位符号位，0正数，1负数
+                 * 41位毫秒级时间戳，41111111111111111111111111111
+                 * 10位机器ID，11 1111 1111
+                 * 12位序列号，1111 1111 1111
+                 * */
+                return ((now - epoch) << layout.getTimestampShift()) | nodeBits | sequence;
+            }
+        }
+    }
+
+    /**
+     * 计算相对纪元的时间戳，早于纪元或超出布局的时间位数时抛出异常，
+     * 否则负数会在移位后污染序列号与符号位
+     *
+     * @param timestamp 毫秒时间戳
+     * @return 相对纪元的毫秒数
+     */
+    private long checkTimestamp(long timestamp) {
+        long delta = timestamp - epoch;
+        if (delta < 0 || delta > layout.getMaxTimestamp()) {
+            throw new IllegalStateException("时间戳超出位布局可表示的范围，请调整纪元或时间位数");
+        }
+        return delta;
+    }
+
+    /**
+     * 获取用于生成ID的时间戳。
+     *      系统时钟回拨时不再休眠等待，而是以上次的时间戳作为逻辑时钟继续推进，生成过程不会被阻塞；
+     *      回拨期间序列号用完则借用下一毫秒，直到系统时钟追上逻辑时钟
+     *
+     * @param lastTimestamp 上次生成ID的时间戳
+     * @param now           本次读取的系统时间戳
+     * @return 不小于 lastTimestamp 的时间戳
+     */
+    private long currentMillis(long lastTimestamp, long now) {
+        if (now < lastTimestamp) {
+            // 早于纪元的系统时钟不能当作回拨处理
+            checkTimestamp(now);
+            recordClockBackwards(lastTimestamp - now);
+            return lastTimestamp;
         }
-        lastTimestamp = now;
-        /*
-         * 长度64位，其中：
-         * 1位符号位，0正数，1负数
-         * 41位毫秒级时间戳，41111111111111111111111111111
-         * 10位机器ID，11 1111 1111
-         * 12位序列号，1111 1111 1111
-         * */
-        return ((now - twepoch) << 22) | ((long) workerId << 12) | sequence;
+        if (clockBackwards.get()) {
+            clockBackwards.set(false);
+        }
+        return now;
+    }
+
+    /**
+     * 毫秒内序列号用完后获取下一毫秒：系统时钟正常时等待，回拨期间直接借用 lastTimestamp + 1
+     *
+     * @param lastTimestamp 上次生成ID的时间戳
+     * @return 大于 lastTimestamp 的时间戳
+     */
+    private long nextMillis(long lastTimestamp) {
+        if (clockBackwards.get() && getTimestamp() < lastTimestamp) {
+            return lastTimestamp + 1;
+        }
+        return getNextMillis(lastTimestamp);
+    }
+
+    private void recordClockBackwards(long offset) {
+        if (clockBackwards.compareAndSet(false, true)) {
+            clockBackwardsEvents.incrementAndGet();
+        }
+        long max = maxClockBackwardsMillis.get();
+        while (offset > max && !maxClockBackwardsMillis.compareAndSet(max, offset)) {
+            max = maxClockBackwardsMillis.get();
+        }
+    }
+
+    /**
+     * CAS 成功后才计数，竞争重试不会重复计入
+     *
+     * @param wall          本次读取的系统时间戳
+     * @param lastTimestamp 上次生成ID的时间戳
+     */
+    private void recordLogicalClockGeneration(long wall, long lastTimestamp) {
+        if (wall < lastTimestamp) {
+            clockBackwardsGenerations.increment();
+        }
+    }
+
+    /**
+     * 时钟回拨发生的次数，连续观测到的回拨只计一次
+     *
+     * @return 回拨次数
+     */
+    public long getClockBackwardsEvents() {
+        return clockBackwardsEvents.get();
+    }
+
+    /**
+     * 观测到的最大回拨毫秒数
+     *
+     * @return 最大回拨毫秒数
+     */
+    public long getMaxClockBackwardsMillis() {
+        return maxClockBackwardsMillis.get();
+    }
+
+    /**
+     * 回拨期间基于逻辑时钟生成ID（或批量预留）的次数
+     *
+     * @return 生成次数
+     */
+    public long getClockBackwardsGenerations() {
+        return clockBackwardsGenerations.sum();
     }
 
     /**
-     * 将长整型ID解码为字符串格式
+     * 将长整型ID解码为字符串格式，按默认布局解析
      *
      * @param id 需要解码的长整型ID
-     * @return 解码后的字符串，格式为"时间戳\t序列号\t工作机ID\t中心ID"
+     * @return 解码后的字符串，格式为"时间戳\t序列号\t工作机ID\t时间"
      */
     public static String idDecode(long id) {
-        // 取低12位的数
-        long sequence = id & 4095;
-        // 左移后取低10位的数
-        long workerId = (id >> 10) & 1023;
-        // 左移后取低41位的数
-        long time = (id >> 22);
+        SnowflakeId decoded = SnowflakeLayout.DEFAULT.decode(id, new SnowflakeId());
+        long time = decoded.getTimestamp() - SnowflakeLayout.DEFAULT_EPOCH;
         return MessageFormat.format("time:{0,number,#}\treq:{1}\twid:{2}\t{3}"
                 , time
-                , sequence
-                , workerId
-                , getDataTime(time));
+                , decoded.getSequence()
+                , decoded.getWorkerId()
+                , getDataTime(decoded.getTimestamp()));
     }
 
-    private static String getDataTime(long timeInterval) {
-        var timestamp = twepoch + timeInterval;
+    /**
+     * 按当前实例的布局解码ID到可复用的结构中，不产生新对象
+     *
+     * @param id  ID
+     * @param out 接收结果的结构
+     * @return 传入的 out
+     */
+    public SnowflakeId decode(long id, SnowflakeId out) {
+        return layout.decode(id, out);
+    }
+
+    private static String getDataTime(long timestamp) {
         var date = new Date(timestamp);
         SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
         return format.format(date);
@@ -173,20 +527,31 @@ public class SnowflakeIdUtil {
 
 
     protected long getTimestamp() {
-        return System.currentTimeMillis();
+        return timeSource.currentTimeMillis();
     }
 
     /**
-     * 等待下一个毫秒,直到获得新的时间戳
+     * 等待下一个毫秒,直到获得新的时间戳。
+     *      由时间源挂起当前线程，不再忙等
      *
      * @param lastTimestamp 上次时间戳
      * @return 新时间戳
      */
     protected long getNextMillis(long lastTimestamp) {
-        long timestamp = getTimestamp();
-        while (timestamp <= lastTimestamp) {
-            timestamp = getTimestamp();
-        }
-        return timestamp;
+        return timeSource.awaitAfter(lastTimestamp);
+    }
+
+    /**
+     * 生成模式
+     */
+    public enum GenerateMode {
+        /**
+         * 加锁生成，与旧版本行为一致
+         */
+        SYNCHRONIZED,
+        /**
+         * 无锁生成，适合高并发场景
+         */
+        LOCK_FREE
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+package com.liuiie.demo.utils.id;
+
+/**
+ * 雪花算法的位布局
+ *      描述 63 位有效位在时间戳、数据中心ID、机器ID、序列号之间的划分以及起始纪元，
+ *      编码与解码都由同一个布局驱动，保证两者一致
+ *
+ * @author Liuiie
+ * @since 2026/10/18 15:50
+ */
+public final class SnowflakeLayout {
+    /**
+     * 业务系统上线的时间 2024-10-01 0:0:0
+     */
+    public static final long DEFAULT_EPOCH = 1727712000000L;
+
+    /**
+     * 默认布局：41位时间戳，10位机器ID，12位序列号，与历史ID兼容
+     */
+    public static final SnowflakeLayout DEFAULT = new SnowflakeLayout(41, 0, 10, 12, DEFAULT_EPOCH);
+
+    private final int timeBits;
+
+    private final int datacenterBits;
+
+    private final int workerBits;
+
+    private final int sequenceBits;
+
+    private final long epoch;
+
+    private final int workerShift;
+
+    private final int datacenterShift;
+
+    private final int timestampShift;
+
+    private final long sequenceMask;
+
+    private final long maxWorkerId;
+
+    private final long maxDatacenterId;
+
+    private final long maxTimestamp;
+
+    /**
+     * 构造位布局，各部分位数之和必须为 63
+     *
+     * @param timeBits       时间戳位数
+     * @param datacenterBits 数据中心ID位数，单数据中心可为 0
+     * @param workerBits     机器ID位数
+     * @param sequenceBits   序列号位数
+     * @param epoch          起始纪元（毫秒）
+     */
+    public SnowflakeLayout(int timeBits, int datacenterBits, int workerBits, int sequenceBits, long epoch) {
+        if (timeBits < 1 || datacenterBits < 0 || workerBits < 0 || sequenceBits < 1 || sequenceBits > 22) {
+            throw new IllegalArgumentException(String.format("非法的位布局 time: %d, datacenter: %d, worker: %d, sequence: %d",
+                    timeBits, datacenterBits, workerBits, sequenceBits));
+        }
+        if (timeBits + datacenterBits + workerBits + sequenceBits != 63) {
+            throw new IllegalArgumentException("time + datacenter + worker + sequence bits must be 63");
+        }
+        if (epoch < 0) {
+            throw new IllegalArgumentException("epoch must not be negative");
+        }
+        this.timeBits = timeBits;
+        this.datacenterBits = datacenterBits;
+        this.workerBits = workerBits;
+        this.sequenceBits = sequenceBits;
+        this.epoch = epoch;
+        this.workerShift = sequenceBits;
+        this.datacenterShift = sequenceBits + workerBits;
+        this.timestampShift = sequenceBits + workerBits + datacenterBits;
+        this.sequenceMask = ~(-1L << sequenceBits);
+        this.maxWorkerId = ~(-1L << workerBits);
+        this.maxDatacenterId = ~(-1L << datacenterBits);
+        this.maxTimestamp = ~(-1L << timeBits);
+    }
+
+    /**
+     * 按布局组装ID
+     *
+     * @param timestamp    毫秒时间戳（绝对时间）
+     * @param datacenterId 数据中心ID
+     * @param workerId     机器ID
+     * @param sequence     序列号
+     * @return ID
+     */
+    public long encode(long timestamp, long datacenterId, long workerId, long sequence) {
+        return ((timestamp - epoch) << timestampShift) | nodeBits(datacenterId, workerId) | sequence;
+    }
+
+    /**
+     * 数据中心ID与机器ID组合后的中间位，同一个实例生成ID时可以预先计算
+     *
+     * @param datacenterId 数据中心ID
+     * @param workerId     机器ID
+     * @return 中间位
+     */
+    public long nodeBits(long datacenterId, long workerId) {
+        return (datacenterId << datacenterShift) | (workerId << workerShift);
+    }
+
+    /**
+     * 解码ID到可复用的结构中，不产生新对象
+     *
+     * @param id  ID
+     * @param out 接收结果的结构
+     * @return 传入的 out
+     */
+    public SnowflakeId decode(long id, SnowflakeId out) {
+        out.setTimestamp((id >>> timestampShift) + epoch);
+        out.setDatacenterId((id >>> datacenterShift) & maxDatacenterId);
+        out.setWorkerId((id >>> workerShift) & maxWorkerId);
+        out.setSequence(id & sequenceMask);
+        return out;
+    }
+
+    public int getTimeBits() {
+        return timeBits;
+    }
+
+    public int getDatacenterBits() {
+        return datacenterBits;
+    }
+
+    public int getWorkerBits() {
+        return workerBits;
+    }
+
+    public int getSequenceBits() {
+        return sequenceBits;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int getTimestampShift() {
+        return timestampShift;
+    }
+
+    public long getSequenceMask() {
+        return sequenceMask;
+    }
+
+    public long getMaxWorkerId() {
+        return maxWorkerId;
+    }
+
+    public long getMaxDatacenterId() {
+        return maxDatacenterId;
+    }
+
+    /**
+     * 时间戳部分能表示的最大值（相对纪元的毫秒数）
+     */
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+}
@@ -0,0 +1,45 @@
+package com.liuiie.demo.utils.id;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 时间源
+ *      雪花算法通过它获取毫秒时间戳，可替换为缓存时钟或测试用的可控时钟
+ *
+ * @author Liuiie
+ * @since 2026/10/18 15:05
+ */
+@FunctionalInterface
+public interface TimeSource {
+    /**
+     * 默认的等待粒度（纳秒）
+     */
+    long DEFAULT_PARK_NANOS = 100_000L;
+
+    /**
+     * 系统时钟
+     */
+    TimeSource SYSTEM = System::currentTimeMillis;
+
+    /**
+     * 当前毫秒时间戳
+     *
+     * @return 毫秒时间戳
+     */
+    long currentTimeMillis();
+
+    /**
+     * 挂起当前线程，直到时间戳大于 timestamp，代替忙等
+     *
+     * @param timestamp 需要越过的时间戳
+     * @return 大于 timestamp 的时间戳
+     */
+    default long awaitAfter(long timestamp) {
+        long now = currentTimeMillis();
+        while (now <= timestamp) {
+            LockSupport.parkNanos(DEFAULT_PARK_NANOS);
+            now = currentTimeMillis();
+        }
+        return now;
+    }
+}
@@ -0,0 +1,60 @@
+package com.liuiie.demo.utils.id;
+
+import java.util.function.IntConsumer;
+
+/**
+ * 雪花算法 workerId 租约管理
+ *      由集中式的租约代替按IP计算 workerId，保证同一时刻每个 workerId 只被一个实例持有
+ *
+ * @author Liuiie
+ * @since 2026/10/18 13:20
+ */
+public interface WorkerIdLeaseManager {
+    /**
+     * 默认布局下 workerId 的取值个数，与 10 位机器ID对应
+     */
+    int MAX_WORKER_ID = 1024;
+
+    /**
+     * 在 [0, workerIdCount) 中申请一个空闲的 workerId 并开始维持租约
+     *
+     * @param workerIdCount    workerId 的取值个数，由位布局决定，即 {@link SnowflakeLayout#getMaxWorkerId()} + 1
+     * @param reassignListener 租约丢失后重新分配到新 workerId 时的回调；租约失效而尚未重新分配时以 -1 回调，
+     *                         调用方此时必须停止使用原来的 workerId
+     * @return 申请到的 workerId
+     * @throws IllegalStateException 没有空闲的 workerId 或已经释放时抛出
+     */
+    int acquire(int workerIdCount, IntConsumer reassignListener);
+
+    /**
+     * 按默认布局申请一个空闲的 workerId 并开始维持租约
+     *
+     * @param reassignListener 租约丢失后重新分配到新 workerId 时的回调
+     * @return 申请到的 workerId
+     */
+    default int acquire(IntConsumer reassignListener) {
+        return acquire(MAX_WORKER_ID, reassignListener);
+    }
+
+    /**
+     * 按默认布局申请一个空闲的 workerId 并开始维持租约
+     *
+     * @return 申请到的 workerId
+     */
+    default int acquire() {
+        return acquire(workerId -> {
+        });
+    }
+
+    /**
+     * 当前持有的 workerId
+     *
+     * @return workerId，未持有时返回 -1
+     */
+    int getWorkerId();
+
+    /**
+     * 释放持有的 workerId，停止维持租约，释放后不能再次申请
+     */
+    void release();
+}
@@ -0,0 +1,33 @@
+package com.liuiie.demo.utils.id.config;
+
+import com.liuiie.demo.utils.datasource.DynamicDataSource;
+import com.liuiie.demo.utils.id.SegmentIdAllocator;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 号段模式ID配置
+ *
+ * @author Liuiie
+ * @since 2026/10/18 17:20
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "id.segment", name = "enabled", havingValue = "true")
+public class SegmentIdConfig {
+    @Value("${id.segment.table:" + SegmentIdAllocator.DEFAULT_TABLE + "}")
+    private String table;
+
+    @Value("${id.segment.step:" + SegmentIdAllocator.DEFAULT_STEP + "}")
+    private int step;
+
+    @Value("${id.segment.data-source-type:}")
+    private String dataSourceType;
+
+    @Bean(destroyMethod = "shutdown")
+    public SegmentIdAllocator segmentIdAllocator(DynamicDataSource dynamicDataSource) {
+        return new SegmentIdAllocator(dynamicDataSource, StringUtils.isBlank(dataSourceType) ? null : dataSourceType, table, step);
+    }
+}
@@ -0,0 +1,33 @@
+package com.liuiie.demo.utils.id.config;
+
+import com.liuiie.demo.utils.id.RedisWorkerIdLeaseManager;
+import com.liuiie.demo.utils.id.SnowflakeIdUtil;
+import com.liuiie.demo.utils.id.WorkerIdLeaseManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花算法配置
+ *      开启后启动时通过 Redis 申请 workerId，容器关闭时释放
+ *
+ * @author Liuiie
+ * @since 2026/10/18 14:10
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "snowflake.worker-id.lease", name = "enabled", havingValue = "true")
+public class SnowflakeConfig {
+    @Value("${snowflake.worker-id.lease.ttl:30000}")
+    private long ttl;
+
+    @Bean(destroyMethod = "release")
+    public WorkerIdLeaseManager workerIdLeaseManager(StringRedisTemplate stringRedisTemplate) {
+        WorkerIdLeaseManager leaseManager = new RedisWorkerIdLeaseManager(stringRedisTemplate, ttl, TimeUnit.MILLISECONDS);
+        SnowflakeIdUtil.getInstance().useWorkerIdLease(leaseManager);
+        return leaseManager;
+    }
+}
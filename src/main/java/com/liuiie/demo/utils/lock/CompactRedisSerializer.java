@@ -0,0 +1,208 @@
+package com.liuiie.demo.utils.lock;
+
+import com.alibaba.fastjson.support.spring.FastJsonRedisSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CompatibleFieldSerializer;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * 可切换格式的 Redis 值序列化器
+ *      写入格式为 JSON 时与原来的 FastJsonRedisSerializer 字节完全相同；写入格式为 KRYO 时使用 Kryo 二进制编码，
+ *      超过压缩阈值且压缩后更小时再用 LZ4 压缩。二进制值带格式头，读取时按格式头识别，
+ *      没有格式头的按 JSON 读取，因此迁移期间新旧两种值可以同时存在，切回 JSON 后也能读取已写入的二进制值。
+ *
+ * <pre>
+ * JSON       原始 fastjson 字节，首字节不可能是 0xC1（UTF-8 中不合法）
+ * KRYO       0xC1 0x01 Kryo 字节
+ * KRYO_LZ4   0xC1 0x02 原始长度(4 字节，大端) LZ4 压缩后的 Kryo 字节
+ * </pre>
+ *
+ * Kryo 按值中记录的类名实例化对象，与 fastjson 的 autoType 一样，Redis 中的数据必须可信；
+ * 解压前校验格式头中的原始长度，损坏的长度不会导致分配超大数组
+ *
+ * @author Liuiie
+ * @since 2026/10/18 22:10
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+    private static final byte MAGIC = (byte) 0xC1;
+    private static final byte TYPE_KRYO = 0x01;
+    private static final byte TYPE_KRYO_LZ4 = 0x02;
+    private static final int HEADER_LENGTH = 2;
+    private static final int LZ4_HEADER_LENGTH = HEADER_LENGTH + 4;
+    private static final int OUTPUT_BUFFER_SIZE = 512;
+    /**
+     * LZ4 的最大压缩比不超过 255，原始长度超过压缩数据长度的 255 倍时格式头必然已损坏
+     */
+    private static final int LZ4_MAX_RATIO = 255;
+
+    /**
+     * 默认允许解压的最大原始长度，64MB
+     */
+    public static final int DEFAULT_MAX_DECOMPRESSED_LENGTH = 64 * 1024 * 1024;
+
+    /**
+     * 写入格式
+     */
+    public enum Format {
+        JSON, KRYO
+    }
+
+    private final Format format;
+
+    /**
+     * Kryo 编码后超过该字节数才尝试压缩，小于等于 0 时不压缩
+     */
+    private final int compressThreshold;
+
+    /**
+     * 允许解压的最大原始长度
+     */
+    private final int maxDecompressedLength;
+
+    private final FastJsonRedisSerializer<Object> jsonSerializer = new FastJsonRedisSerializer<>(Object.class);
+
+    /**
+     * Kryo 实例不是线程安全的，借用后归还
+     */
+    private final Pool<Kryo> kryoPool = new Pool<Kryo>(true, false, Runtime.getRuntime().availableProcessors() * 4) {
+        @Override
+        protected Kryo create() {
+            Kryo kryo = new Kryo();
+            kryo.setRegistrationRequired(false);
+            kryo.setReferences(true);
+            // 按字段名读写，类增删字段后仍能读取旧值
+            kryo.setDefaultSerializer(CompatibleFieldSerializer.class);
+            // 优先使用无参构造，没有时绕过构造方法创建
+            kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+            return kryo;
+        }
+    };
+
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    /**
+     * @param format            写入格式
+     * @param compressThreshold Kryo 编码后超过该字节数才尝试 LZ4 压缩，小于等于 0 时不压缩
+     */
+    public CompactRedisSerializer(Format format, int compressThreshold) {
+        this(format, compressThreshold, DEFAULT_MAX_DECOMPRESSED_LENGTH);
+    }
+
+    /**
+     * @param format                写入格式
+     * @param compressThreshold     Kryo 编码后超过该字节数才尝试 LZ4 压缩，小于等于 0 时不压缩
+     * @param maxDecompressedLength 允许解压的最大原始长度，格式头中的长度超过该值时拒绝读取
+     */
+    public CompactRedisSerializer(Format format, int compressThreshold, int maxDecompressedLength) {
+        if (maxDecompressedLength <= 0) {
+            throw new IllegalArgumentException("maxDecompressedLength must be positive");
+        }
+        this.format = format;
+        this.compressThreshold = compressThreshold;
+        this.maxDecompressedLength = maxDecompressedLength;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (format == Format.JSON) {
+            return jsonSerializer.serialize(value);
+        }
+        Kryo kryo = kryoPool.obtain();
+        try (Output output = new Output(OUTPUT_BUFFER_SIZE, -1)) {
+            output.setPosition(HEADER_LENGTH);
+            kryo.writeClassAndObject(output, value);
+            byte[] buffer = output.getBuffer();
+            int length = output.position() - HEADER_LENGTH;
+            if (compressThreshold > 0 && length > compressThreshold) {
+                byte[] compressed = compress(buffer, length);
+                if (compressed != null) {
+                    return compressed;
+                }
+            }
+            byte[] bytes = output.toBytes();
+            bytes[0] = MAGIC;
+            bytes[1] = TYPE_KRYO;
+            return bytes;
+        } catch (Exception e) {
+            throw new SerializationException("Kryo 序列化失败: " + value.getClass().getName(), e);
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC || bytes.length < HEADER_LENGTH) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        byte[] data;
+        int offset;
+        int length;
+        if (bytes[1] == TYPE_KRYO) {
+            data = bytes;
+            offset = HEADER_LENGTH;
+            length = bytes.length - HEADER_LENGTH;
+        } else if (bytes[1] == TYPE_KRYO_LZ4 && bytes.length >= LZ4_HEADER_LENGTH) {
+            length = ((bytes[2] & 0xFF) << 24) | ((bytes[3] & 0xFF) << 16) | ((bytes[4] & 0xFF) << 8) | (bytes[5] & 0xFF);
+            if (length <= 0 || length > maxDecompressedLength
+                    || length > (long) (bytes.length - LZ4_HEADER_LENGTH) * LZ4_MAX_RATIO) {
+                throw new SerializationException("LZ4 格式头中的原始长度非法: " + length);
+            }
+            data = new byte[length];
+            offset = 0;
+            try {
+                decompressor.decompress(bytes, LZ4_HEADER_LENGTH, data, 0, length);
+            } catch (Exception e) {
+                throw new SerializationException("LZ4 解压失败", e);
+            }
+        } else {
+            throw new SerializationException("未知的序列化格式: " + bytes[1]);
+        }
+        Kryo kryo = kryoPool.obtain();
+        try {
+            return kryo.readClassAndObject(new Input(data, offset, length));
+        } catch (Exception e) {
+            throw new SerializationException("Kryo 反序列化失败", e);
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+
+    /**
+     * 压缩 buffer 中格式头之后的 length 个字节，压缩后不更小时返回 null
+     */
+    private byte[] compress(byte[] buffer, int length) {
+        int maxLength = compressor.maxCompressedLength(length);
+        byte[] compressed = new byte[LZ4_HEADER_LENGTH + maxLength];
+        int compressedLength = compressor.compress(buffer, HEADER_LENGTH, length, compressed, LZ4_HEADER_LENGTH, maxLength);
+        if (LZ4_HEADER_LENGTH + compressedLength >= HEADER_LENGTH + length) {
+            return null;
+        }
+        compressed[0] = MAGIC;
+        compressed[1] = TYPE_KRYO_LZ4;
+        compressed[2] = (byte) (length >>> 24);
+        compressed[3] = (byte) (length >>> 16);
+        compressed[4] = (byte) (length >>> 8);
+        compressed[5] = (byte) length;
+        byte[] result = new byte[LZ4_HEADER_LENGTH + compressedLength];
+        System.arraycopy(compressed, 0, result, 0, result.length);
+        return result;
+    }
+}
@@ -0,0 +1,25 @@
+package com.liuiie.demo.utils.lock;
+
+/**
+ * 分布式锁获取失败
+ *
+ * @author Liuiie
+ * @since 2026/10/18 20:10
+ */
+public class DistributedLockException extends RuntimeException {
+    public DistributedLockException() {
+        super();
+    }
+
+    public DistributedLockException(String message) {
+        super(message);
+    }
+
+    public DistributedLockException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public DistributedLockException(Throwable cause) {
+        super(cause);
+    }
+}
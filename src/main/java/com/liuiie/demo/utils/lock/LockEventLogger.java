@@ -0,0 +1,226 @@
+package com.liuiie.demo.utils.lock;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分布式锁事件日志
+ *      加锁、解锁时只累加计数，并按比例抽样写入内存环形缓冲，由后台线程定期输出一条汇总与少量抽样事件，
+ *      代替每次加解锁都打印一行日志。失败类事件（获取失败、未持有）每个周期最多抽样 MAX_FAILURE_SAMPLES 条，
+ *      超出的只计数，避免故障时大量失败事件挤占缓冲；成功类事件按 1/SAMPLE_RATE 抽样
+ *
+ * @author Liuiie
+ * @since 2026/10/18 20:30
+ */
+@Log4j2
+final class LockEventLogger {
+    /**
+     * 汇总输出间隔（秒）
+     */
+    private static final long FLUSH_INTERVAL_SECONDS = 10L;
+    /**
+     * 成功类事件的抽样比例
+     */
+    private static final int SAMPLE_RATE = 64;
+    /**
+     * 环形缓冲大小，必须是 2 的幂
+     */
+    private static final int RING_SIZE = 256;
+    /**
+     * 每次汇总最多输出的抽样事件数
+     */
+    private static final int MAX_SAMPLES_PER_FLUSH = 20;
+    /**
+     * 每个周期最多抽样的失败类事件数
+     */
+    private static final int MAX_FAILURE_SAMPLES = 64;
+
+    private static final LongAdder[][] COUNTS = new LongAdder[Kind.values().length][Event.values().length];
+
+    private static final AtomicReferenceArray<LockEvent> RING = new AtomicReferenceArray<>(RING_SIZE);
+
+    private static final AtomicLong RING_SEQUENCE = new AtomicLong();
+
+    /**
+     * 本周期剩余的失败类事件抽样名额，每次汇总时重置
+     */
+    private static final AtomicInteger FAILURE_SAMPLE_TOKENS = new AtomicInteger(MAX_FAILURE_SAMPLES);
+
+    /**
+     * 本周期超出名额未抽样的失败类事件数
+     */
+    private static final LongAdder DROPPED_FAILURE_SAMPLES = new LongAdder();
+
+    static {
+        for (LongAdder[] row : COUNTS) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = new LongAdder();
+            }
+        }
+    }
+
+    private LockEventLogger() {
+    }
+
+    /**
+     * 锁的种类
+     */
+    enum Kind {
+        LOCK("普通锁"), FAIR("公平锁"), READ("读锁"), WRITE("写锁"), MULTI("联锁");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * 锁事件
+     */
+    enum Event {
+        ACQUIRED("获取成功", false), FAILED("获取失败", true), RELEASED("释放", false), NOT_HELD("未持有", true);
+
+        private final String label;
+
+        /**
+         * 是否为失败类事件，按名额抽样
+         */
+        private final boolean failure;
+
+        Event(String label, boolean failure) {
+            this.label = label;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * 使用 Holder 模式懒加载汇总线程，第一次记录事件时启动
+     */
+    private static class FlusherHolder {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lock-event-logger");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            INSTANCE.scheduleWithFixedDelay(LockEventLogger::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+
+        private static void start() {
+            // 类初始化已完成调度
+        }
+    }
+
+    /**
+     * 记录一次锁事件
+     *
+     * @param kind     锁的种类
+     * @param event    事件
+     * @param lockName 锁名称
+     */
+    static void record(Kind kind, Event event, String lockName) {
+        FlusherHolder.start();
+        COUNTS[kind.ordinal()][event.ordinal()].increment();
+        if (event.failure ? acquireFailureSample() : ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0) {
+            int index = (int) RING_SEQUENCE.getAndIncrement() & (RING_SIZE - 1);
+            RING.set(index, new LockEvent(System.currentTimeMillis(), Thread.currentThread().getName(), kind, event, lockName));
+        }
+    }
+
+    /**
+     * 占用一个失败类事件的抽样名额，名额用完时计入未抽样数
+     */
+    private static boolean acquireFailureSample() {
+        // 名额用完后只读不写，避免故障期间在同一个计数器上竞争
+        if (FAILURE_SAMPLE_TOKENS.get() > 0 && FAILURE_SAMPLE_TOKENS.getAndDecrement() > 0) {
+            return true;
+        }
+        DROPPED_FAILURE_SAMPLES.increment();
+        return false;
+    }
+
+    /**
+     * 输出上一个周期的汇总与抽样事件，没有事件时不输出
+     */
+    static void flush() {
+        try {
+            FAILURE_SAMPLE_TOKENS.set(MAX_FAILURE_SAMPLES);
+            long droppedFailures = DROPPED_FAILURE_SAMPLES.sumThenReset();
+            StringBuilder summary = new StringBuilder();
+            for (Kind kind : Kind.values()) {
+                StringBuilder line = null;
+                for (Event event : Event.values()) {
+                    long count = COUNTS[kind.ordinal()][event.ordinal()].sumThenReset();
+                    if (count > 0) {
+                        line = line == null ? new StringBuilder(kind.label).append(':') : line.append(',');
+                        line.append(' ').append(event.label).append('=').append(count);
+                    }
+                }
+                if (line != null) {
+                    summary.append(summary.length() == 0 ? "" : "; ").append(line);
+                }
+            }
+            if (summary.length() == 0) {
+                return;
+            }
+            log.info("分布式锁事件汇总（{}秒）: {}", FLUSH_INTERVAL_SECONDS, summary);
+            int printed = 0;
+            int dropped = 0;
+            for (int i = 0; i < RING_SIZE; i++) {
+                LockEvent sample = RING.getAndSet(i, null);
+                if (sample == null) {
+                    continue;
+                }
+                if (printed < MAX_SAMPLES_PER_FLUSH) {
+                    log.info("分布式锁抽样事件: 时间={}, 线程={}, {}{}: {}", sample.timestamp, sample.threadName,
+                            sample.kind.label, sample.event.label, sample.lockName);
+                    printed++;
+                } else {
+                    dropped++;
+                }
+            }
+            if (dropped > 0) {
+                log.info("分布式锁抽样事件另有 {} 条未输出", dropped);
+            }
+            if (droppedFailures > 0) {
+                log.info("分布式锁失败类事件另有 {} 条超过抽样上限未记录", droppedFailures);
+            }
+        } catch (Exception e) {
+            // 异常不能抛出，否则调度器会取消后续的汇总
+            log.error("输出分布式锁事件汇总时发生异常", e);
+        }
+    }
+
+    /**
+     * 抽样的锁事件
+     */
+    private static final class LockEvent {
+        private final long timestamp;
+
+        private final String threadName;
+
+        private final Kind kind;
+
+        private final Event event;
+
+        private final String lockName;
+
+        private LockEvent(long timestamp, String threadName, Kind kind, Event event, String lockName) {
+            this.timestamp = timestamp;
+            this.threadName = threadName;
+            this.kind = kind;
+            this.event = event;
+            this.lockName = lockName;
+        }
+    }
+}
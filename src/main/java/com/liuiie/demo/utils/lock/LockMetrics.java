@@ -0,0 +1,225 @@
+package com.liuiie.demo.utils.lock;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.liuiie.demo.utils.common.SpringContextUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁指标
+ *      为 RedisLockUtil 与 RedissonLockUtil 记录加锁耗时（即等待时间）、持有时间、失败次数与续期次数，
+ *      指标只按后端、锁类型、结果打标签，不以锁名作为标签；热点锁名由 Space-Saving Top-K 单独统计，基数有上限
+ *
+ * <pre>
+ * distributed.lock.acquire   Timer   backend, type, result(success|failure)
+ * distributed.lock.hold      Timer   backend, type
+ * distributed.lock.renewal   Counter backend, result(success|failure)
+ * distributed.lock.hold.untracked Counter backend   未释放或持有过久而不再跟踪、没有记录持有时间的锁
+ * </pre>
+ *
+ * @author Liuiie
+ * @since 2026/10/18 19:45
+ */
+@Log4j2
+public class LockMetrics {
+    /**
+     * 加锁耗时超过该值（或加锁失败）即视为发生竞争
+     */
+    private static final long CONTENDED_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    /**
+     * Top-K 最多跟踪的锁名数量
+     */
+    private static final int TOP_K_CAPACITY = 128;
+    /**
+     * 最多同时跟踪的持有中的锁，超过后淘汰最早的记录，防止未释放的锁撑大内存
+     */
+    private static final int MAX_TRACKED_HOLDS = 65536;
+    /**
+     * 持有时间的最长跟踪时间（分钟），不小于锁的有效期；超过后视为未释放，不再记录持有时间
+     */
+    private static final long MAX_TRACKED_HOLD_MINUTES = 60L;
+
+    private static final SpaceSavingTopK CONTENDED_KEYS = new SpaceSavingTopK(TOP_K_CAPACITY);
+
+    /**
+     * 持有中的锁的加锁时间（纳秒），键为 后端:类型:锁名:持有者；过期或被淘汰的记录计入 untracked
+     */
+    private static final Cache<String, Long> ACQUIRED_AT = CacheBuilder.newBuilder()
+            .maximumSize(MAX_TRACKED_HOLDS)
+            .expireAfterWrite(MAX_TRACKED_HOLD_MINUTES, TimeUnit.MINUTES)
+            .removalListener(LockMetrics::onHoldRemoved)
+            .build();
+
+    /**
+     * 锁的实现
+     */
+    public enum Backend {
+        REDIS, REDISSON
+    }
+
+    /**
+     * 锁的类型
+     */
+    public enum LockType {
+        LOCK, READ, WRITE
+    }
+
+    /**
+     * 使用 Holder 模式懒加载，预先注册所有标签组合的指标，热路径上不再查找注册表
+     */
+    private static class MetersHolder {
+        private static final Timer[][] ACQUIRED = new Timer[Backend.values().length][LockType.values().length];
+        private static final Timer[][] FAILED = new Timer[Backend.values().length][LockType.values().length];
+        private static final Timer[][] HOLD = new Timer[Backend.values().length][LockType.values().length];
+        private static final Counter[] RENEWED = new Counter[Backend.values().length];
+        private static final Counter[] RENEW_FAILED = new Counter[Backend.values().length];
+        private static final Counter[] UNTRACKED = new Counter[Backend.values().length];
+
+        static {
+            MeterRegistry registry = resolveRegistry();
+            for (Backend backend : Backend.values()) {
+                String backendTag = backend.name().toLowerCase();
+                for (LockType type : LockType.values()) {
+                    String typeTag = type.name().toLowerCase();
+                    ACQUIRED[backend.ordinal()][type.ordinal()] = acquireTimer(registry, backendTag, typeTag, "success");
+                    FAILED[backend.ordinal()][type.ordinal()] = acquireTimer(registry, backendTag, typeTag, "failure");
+                    HOLD[backend.ordinal()][type.ordinal()] = Timer.builder("distributed.lock.hold")
+                            .description("分布式锁持有时间")
+                            .tags("backend", backendTag, "type", typeTag)
+                            .publishPercentileHistogram()
+                            .register(registry);
+                }
+                RENEWED[backend.ordinal()] = renewalCounter(registry, backendTag, "success");
+                RENEW_FAILED[backend.ordinal()] = renewalCounter(registry, backendTag, "failure");
+                UNTRACKED[backend.ordinal()] = Counter.builder("distributed.lock.hold.untracked")
+                        .description("未释放或持有过久而不再跟踪持有时间的锁")
+                        .tags("backend", backendTag)
+                        .register(registry);
+            }
+        }
+
+        private static Timer acquireTimer(MeterRegistry registry, String backend, String type, String result) {
+            return Timer.builder("distributed.lock.acquire")
+                    .description("分布式锁加锁耗时，包含等待时间")
+                    .tags("backend", backend, "type", type, "result", result)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        private static Counter renewalCounter(MeterRegistry registry, String backend, String result) {
+            return Counter.builder("distributed.lock.renewal")
+                    .description("分布式锁续期次数")
+                    .tags("backend", backend, "result", result)
+                    .register(registry);
+        }
+
+        /**
+         * 优先使用 Spring 容器中的 MeterRegistry，没有时使用全局注册表
+         */
+        private static MeterRegistry resolveRegistry() {
+            try {
+                return SpringContextUtil.getBean(MeterRegistry.class);
+            } catch (Exception e) {
+                log.warn("未找到 MeterRegistry，分布式锁指标注册到 Metrics.globalRegistry");
+                return Metrics.globalRegistry;
+            }
+        }
+    }
+
+    /**
+     * 记录一次加锁
+     *
+     * @param backend    锁的实现
+     * @param type       锁的类型
+     * @param key        锁名，只用于热点统计
+     * @param owner      持有者标识，用于匹配释放时的持有时间，加锁失败时可为 null
+     * @param startNanos 开始加锁时的 System.nanoTime()
+     * @param acquired   是否加锁成功
+     */
+    public static void recordAcquire(Backend backend, LockType type, String key, String owner, long startNanos, boolean acquired) {
+        long now = System.nanoTime();
+        long elapsed = now - startNanos;
+        Timer[][] timers = acquired ? MetersHolder.ACQUIRED : MetersHolder.FAILED;
+        timers[backend.ordinal()][type.ordinal()].record(elapsed, TimeUnit.NANOSECONDS);
+        if (!acquired || elapsed >= CONTENDED_NANOS) {
+            CONTENDED_KEYS.offer(key);
+        }
+        if (acquired && owner != null) {
+            // 重入时保留最外层的加锁时间
+            ACQUIRED_AT.asMap().putIfAbsent(holdKey(backend, type, key, owner), now);
+        }
+    }
+
+    /**
+     * 记录一次释放。
+     *      重入时加锁时间只保留最外层的一次，持有时间在第一次释放时结束，之后的释放不再记录，
+     *      这样调用方不必为判断是否完全释放再访问一次 Redis
+     *
+     * @param backend 锁的实现
+     * @param type    锁的类型
+     * @param key     锁名
+     * @param owner   持有者标识
+     */
+    public static void recordRelease(Backend backend, LockType type, String key, String owner) {
+        Long acquiredAt = ACQUIRED_AT.asMap().remove(holdKey(backend, type, key, owner));
+        if (acquiredAt != null) {
+            MetersHolder.HOLD[backend.ordinal()][type.ordinal()].record(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 记录一批续期结果
+     *
+     * @param backend   锁的实现
+     * @param succeeded 续期成功的锁数量
+     * @param failed    续期失败的锁数量
+     */
+    public static void recordRenewal(Backend backend, int succeeded, int failed) {
+        if (succeeded > 0) {
+            MetersHolder.RENEWED[backend.ordinal()].increment(succeeded);
+        }
+        if (failed > 0) {
+            MetersHolder.RENEW_FAILED[backend.ordinal()].increment(failed);
+        }
+    }
+
+    /**
+     * 竞争最激烈的锁名，计数为估计值（上界）
+     *
+     * @param n 数量
+     * @return 锁名与竞争次数，按次数从大到小排列
+     */
+    public static List<Map.Entry<String, Long>> topContendedKeys(int n) {
+        return CONTENDED_KEYS.top(n);
+    }
+
+    /**
+     * 清空热点统计，例如按统计周期重置
+     */
+    public static void resetContendedKeys() {
+        CONTENDED_KEYS.clear();
+    }
+
+    /**
+     * 持有中的锁超过跟踪时间或被容量淘汰时计数，释放时的移除不计
+     */
+    private static void onHoldRemoved(RemovalNotification<String, Long> notification) {
+        if (notification.wasEvicted()) {
+            String holdKey = notification.getKey();
+            MetersHolder.UNTRACKED[holdKey.charAt(0) - '0'].increment();
+        }
+    }
+
+    private static String holdKey(Backend backend, LockType type, String key, String owner) {
+        return backend.ordinal() + ":" + type.ordinal() + ":" + key + ":" + owner;
+    }
+}
@@ -3,14 +3,26 @@ package com.liuiie.demo.utils.lock;
 import com.liuiie.demo.utils.common.SpringContextUtil;
 import com.liuiie.demo.utils.thread.ThreadUtil;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -18,7 +30,7 @@ import java.util.concurrent.TimeUnit;
  *      该工具类提供了一系列静态方法用于在分布式环境中实现基于 Redis 的锁机制，
  *      包括加锁、自旋加锁（带超时）、解锁和自动续期功能。为了保证锁的安全性和可靠性，
  *      解锁操作只有持有相同 requestId 的客户端才能成功执行。此外，还实现了自动续期机制，
- *      确保在任务执行期间不会因为锁过期而导致其他客户端获取到锁。
+ *      确保在任务执行期间不会因为锁过期而导致其他客户端获取到锁，所有锁的续期由同一个看门狗线程负责。
  *      提供了读写锁支持，确保锁的安全性和可靠性。通过 Lua 脚本和心跳机制来保证操作的原子性和续期任务的正常终止。
  *
  * @author Liuiie
@@ -34,19 +46,259 @@ public class RedisLockUtil {
 
     /**
      * 读锁后缀
+     *
+     * @deprecated 读写锁已合并到同一个 hash 中，键后缀为 {@link #RW_LOCK_SUFFIX}
      */
+    @Deprecated
     public static final String READ_LOCK_SUFFIX = "_READ";
 
+    /**
+     * 读写锁后缀，读者与写者记录在同一个 hash 键 KEY_PREFIX + key + RW_LOCK_SUFFIX 中
+     */
+    public static final String RW_LOCK_SUFFIX = "_RW";
+
     /**
      * Spring 应用上下文中 RedisTemplate 的 bean 名称。
      */
     public static final String BEAN_STRING_REDIS_NAME = "stringRedisTemplate";
 
     /**
-     * 存储所有正在运行的续期任务。
+     * Spring 应用上下文中 RedisMessageListenerContainer 的 bean 名称。
+     */
+    public static final String BEAN_LISTENER_CONTAINER_NAME = "redisMessageListenerContainer";
+
+    /**
+     * 解锁通知频道的前缀，解锁成功后向 UNLOCK_CHANNEL_PREFIX + key 发布消息。
+     */
+    public static final String UNLOCK_CHANNEL_PREFIX = "LOCK_CHANNEL_";
+
+    /**
+     * 存储所有正在运行的续期任务，键为 锁的唯一标识符 + ":" + requestId，同一个 requestId 可以同时持有多把锁。
      */
     private static final Map<String, RenewalTask> RENEWAL_TASKS = new ConcurrentHashMap<>();
 
+    /**
+     * 正在等待解锁通知的锁，键为锁的唯一标识符。
+     */
+    private static final Map<String, LockWaiter> WAITERS = new ConcurrentHashMap<>();
+
+    /**
+     * 等待解锁通知时单次阻塞的最长时间（毫秒）。
+     *      监听容器是异步订阅的，订阅生效之前发布的解锁通知会丢失，到时即使没有收到通知也重试一次加锁
+     */
+    static final long NOTIFY_REPOLL_MILLIS = 500L;
+
+    /**
+     * 读写锁续期任务的请求 ID 前缀，同一把读写锁在本地只有一个续期任务
+     */
+    private static final String RW_RENEWAL_ID_PREFIX = "RW_RENEWAL_";
+
+    /**
+     * 读写锁脚本的公共开头：取 Redis 服务器时间 now（毫秒），并定义 prune(key)，
+     *      删除租约截止时间 d:{requestId} 已过的读者，hash 中不再有字段时删除整个键。
+     *      所有读者共用 hash 的有效期，崩溃的读者不会解锁，只要还有其他读者在续期，
+     *      它的字段就要靠自己的截止时间清除，否则写者会一直等下去。
+     *      脚本中读取了 TIME，需要按命令而不是按脚本复制（Redis 5 起为默认行为）
+     */
+    private static final String READ_WRITE_PRUNE =
+            "redis.replicate_commands() " +
+            "local time = redis.call('TIME') " +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+            "local function prune(key) " +
+            "  local fields = redis.call('HGETALL', key) " +
+            "  for i = 1, #fields, 2 do " +
+            "    if string.sub(fields[i], 1, 2) == 'd:' and tonumber(fields[i + 1]) <= now then " +
+            "      redis.call('HDEL', key, fields[i], 'r:' .. string.sub(fields[i], 3)) " +
+            "    end " +
+            "  end " +
+            "  if redis.call('HLEN', key) == 0 then " +
+            "    redis.call('DEL', key) " +
+            "  end " +
+            "end ";
+
+    /**
+     * 读锁脚本：没有其他写者时读者重入次数加一，并把该读者的租约延长到 now + 有效期，成功返回 1，否则返回 0。
+     *      ARGV[1] 为 requestId，ARGV[2] 为有效期毫秒
+     */
+    private static final DefaultRedisScript<Long> READ_LOCK_SCRIPT = new DefaultRedisScript<>(
+            READ_WRITE_PRUNE +
+            "prune(KEYS[1]) " +
+            "local writer = redis.call('HGET', KEYS[1], 'writer') " +
+            "if writer and writer ~= ARGV[1] then " +
+            "  return 0 " +
+            "end " +
+            "local ttl = tonumber(ARGV[2]) " +
+            "redis.call('HINCRBY', KEYS[1], 'r:' .. ARGV[1], 1) " +
+            "local deadline = tonumber(redis.call('HGET', KEYS[1], 'd:' .. ARGV[1])) " +
+            "if not deadline or deadline < now + ttl then " +
+            "  redis.call('HSET', KEYS[1], 'd:' .. ARGV[1], now + ttl) " +
+            "end " +
+            "if redis.call('PTTL', KEYS[1]) < ttl then " +
+            "  redis.call('PEXPIRE', KEYS[1], ttl) " +
+            "end " +
+            "return 1", Long.class);
+
+    /**
+     * 写锁脚本：清除租约已过期的读者后，没有读者与其他写者时加写锁，同一 requestId 重入次数加一，成功返回 1，否则返回 0。
+     */
+    private static final DefaultRedisScript<Long> WRITE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            READ_WRITE_PRUNE +
+            "prune(KEYS[1]) " +
+            "local writer = redis.call('HGET', KEYS[1], 'writer') " +
+            "if writer then " +
+            "  if writer ~= ARGV[1] then " +
+            "    return 0 " +
+            "  end " +
+            "elseif redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "  return 0 " +
+            "else " +
+            "  redis.call('HSET', KEYS[1], 'writer', ARGV[1]) " +
+            "end " +
+            "redis.call('HINCRBY', KEYS[1], 'writes', 1) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "return 1", Long.class);
+
+    /**
+     * 释放读锁脚本：读者重入次数减一，返回剩余次数；归零时连同租约一起删除，hash 为空时删除，未持有时返回 -1。
+     */
+    private static final DefaultRedisScript<Long> READ_UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "local field = 'r:' .. ARGV[1] " +
+            "if redis.call('HEXISTS', KEYS[1], field) == 0 then " +
+            "  return -1 " +
+            "end " +
+            "local count = redis.call('HINCRBY', KEYS[1], field, -1) " +
+            "if count <= 0 then " +
+            "  redis.call('HDEL', KEYS[1], field, 'd:' .. ARGV[1]) " +
+            "  if redis.call('HLEN', KEYS[1]) == 0 then " +
+            "    redis.call('DEL', KEYS[1]) " +
+            "  end " +
+            "end " +
+            "return count", Long.class);
+
+    /**
+     * 释放写锁脚本：写者重入次数减一，返回剩余次数；归零时移除写者，未持有时返回 -1。
+     */
+    private static final DefaultRedisScript<Long> WRITE_UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[1], 'writer') ~= ARGV[1] then " +
+            "  return -1 " +
+            "end " +
+            "local count = redis.call('HINCRBY', KEYS[1], 'writes', -1) " +
+            "if count <= 0 then " +
+            "  redis.call('HDEL', KEYS[1], 'writer', 'writes') " +
+            "  if redis.call('HLEN', KEYS[1]) == 0 then " +
+            "    redis.call('DEL', KEYS[1]) " +
+            "  end " +
+            "end " +
+            "return count", Long.class);
+
+    /**
+     * 加锁脚本：加锁成功返回 nil，否则返回锁的剩余有效期（毫秒），供等待者决定最长等待时间。
+     */
+    private static final DefaultRedisScript<Long> TRY_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then " +
+            "  return nil " +
+            "end " +
+            "return redis.call('PTTL', KEYS[1])", Long.class);
+
+    /**
+     * 解锁脚本：比较 requestId 后删除并发布解锁通知，一次往返完成，避免 GET 与 DEL 之间锁过期被他人获取后误删。
+     *      ARGV[1] 为 requestId，ARGV[2] 为解锁通知频道
+     */
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  redis.call('DEL', KEYS[1]) " +
+            "  redis.call('PUBLISH', ARGV[2], ARGV[1]) " +
+            "  return 1 " +
+            "end " +
+            "return 0", Long.class);
+
+    /**
+     * 批量加锁脚本：所有 KEYS 都未被持有时一次全部加锁并返回 {0}，否则不加任何锁，返回 {冲突锁的下标(从1开始), 剩余有效期}。
+     *      ARGV[1] 为 requestId，ARGV[2] 为有效期毫秒
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> TRY_LOCK_ALL_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, #KEYS do " +
+            "  if redis.call('EXISTS', KEYS[i]) == 1 then " +
+            "    return {i, redis.call('PTTL', KEYS[i])} " +
+            "  end " +
+            "end " +
+            "for i = 1, #KEYS do " +
+            "  redis.call('SET', KEYS[i], ARGV[1], 'PX', ARGV[2]) " +
+            "end " +
+            "return {0}", List.class);
+
+    /**
+     * 批量解锁脚本：逐个比较 requestId 后删除并发布解锁通知，返回释放的数量。
+     *      ARGV[1] 为 requestId，ARGV[i + 1] 为 KEYS[i] 的解锁通知频道
+     */
+    private static final DefaultRedisScript<Long> UNLOCK_ALL_SCRIPT = new DefaultRedisScript<>(
+            "local released = 0 " +
+            "for i = 1, #KEYS do " +
+            "  if redis.call('GET', KEYS[i]) == ARGV[1] then " +
+            "    redis.call('DEL', KEYS[i]) " +
+            "    redis.call('PUBLISH', ARGV[i + 1], ARGV[1]) " +
+            "    released = released + 1 " +
+            "  end " +
+            "end " +
+            "return released", Long.class);
+
+    /**
+     * 看门狗巡检间隔（毫秒），同一轮内到期的锁一起续期
+     */
+    private static final long WATCHDOG_TICK_MILLIS = 100L;
+
+    /**
+     * 单次批量续期脚本最多处理的锁数量，避免脚本执行过久阻塞 Redis
+     */
+    private static final int RENEWAL_BATCH_SIZE = 200;
+
+    /**
+     * 批量续期脚本：每个 KEYS[i] 在 ARGV 中依次对应 有效期毫秒、持有者数量 n、n 个 requestId，逐个返回 1（续期成功）或 0。
+     *      普通锁的值需等于 requestId；读写锁的 hash 由本地所有持有者共用一个续期任务，先清除租约已过期的读者，
+     *      只延长本地读者各自的租约，写者或某个读者属于本地持有者时才延长 hash 的有效期，不会续上其他实例的读者。
+     *      脚本只创建一次，RedisTemplate 会优先使用 EVALSHA，未缓存时回落到 EVAL。
+     *      在 Redis Cluster 下一次脚本的所有 KEYS 必须位于同一槽位，收到 CROSSSLOT 错误后改为按槽位分批
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> BATCH_EXTEND_SCRIPT = new DefaultRedisScript<>(
+            READ_WRITE_PRUNE +
+            "local result = {} " +
+            "local a = 1 " +
+            "for i = 1, #KEYS do " +
+            "  local ttl = tonumber(ARGV[a]) " +
+            "  local n = tonumber(ARGV[a + 1]) " +
+            "  local keyType = redis.call('TYPE', KEYS[i])['ok'] " +
+            "  local held = false " +
+            "  if keyType == 'string' then " +
+            "    local value = redis.call('GET', KEYS[i]) " +
+            "    for j = a + 2, a + 1 + n do " +
+            "      if value == ARGV[j] then held = true end " +
+            "    end " +
+            "    if held then redis.call('PEXPIRE', KEYS[i], ttl) end " +
+            "  elseif keyType == 'hash' then " +
+            "    prune(KEYS[i]) " +
+            "    local writer = redis.call('HGET', KEYS[i], 'writer') " +
+            "    for j = a + 2, a + 1 + n do " +
+            "      if redis.call('HEXISTS', KEYS[i], 'r:' .. ARGV[j]) == 1 then " +
+            "        redis.call('HSET', KEYS[i], 'd:' .. ARGV[j], now + ttl) " +
+            "        held = true " +
+            "      elseif writer == ARGV[j] then " +
+            "        held = true " +
+            "      end " +
+            "    end " +
+            "    if held and redis.call('PTTL', KEYS[i]) < ttl then redis.call('PEXPIRE', KEYS[i], ttl) end " +
+            "  end " +
+            "  result[i] = held and 1 or 0 " +
+            "  a = a + 2 + n " +
+            "end " +
+            "return result", List.class);
+
+    /**
+     * 是否已收到过 CROSSSLOT 错误（Redis Cluster），之后的批量续期按槽位分批
+     */
+    private static volatile boolean renewBySlot;
+
     /**
      * 使用 Holder 模式进行懒加载，确保 RedisTemplate 单例实例的线程安全初始化。
      */
@@ -78,6 +330,92 @@ public class RedisLockUtil {
         return RedisTemplateHolder.INSTANCE;
     }
 
+    /**
+     * 使用 Holder 模式懒加载解锁通知的监听容器，只有使用 tryLockWithNotify 时才需要。
+     */
+    private static class ListenerContainerHolder {
+        private static final RedisMessageListenerContainer INSTANCE;
+
+        static {
+            try {
+                INSTANCE = SpringContextUtil.getBean(BEAN_LISTENER_CONTAINER_NAME, RedisMessageListenerContainer.class);
+                if (INSTANCE == null) {
+                    throw new IllegalStateException("RedisMessageListenerContainer 未正确初始化");
+                }
+            } catch (Exception e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+
+    /**
+     * 订阅锁的解锁频道，同一把锁的本地等待者共用一个订阅。
+     *
+     * @param key 锁的唯一标识符
+     * @return 该锁的本地等待者
+     */
+    private static LockWaiter subscribe(String key) {
+        return WAITERS.compute(key, (k, waiter) -> {
+            if (waiter == null) {
+                waiter = new LockWaiter(new ChannelTopic(UNLOCK_CHANNEL_PREFIX + k));
+                ListenerContainerHolder.INSTANCE.addMessageListener(waiter, waiter.topic);
+            }
+            waiter.references++;
+            return waiter;
+        });
+    }
+
+    /**
+     * 退出等待，最后一个本地等待者退出时取消订阅。
+     *
+     * @param key    锁的唯一标识符
+     * @param waiter subscribe 返回的等待者
+     */
+    private static void unsubscribe(String key, LockWaiter waiter) {
+        WAITERS.computeIfPresent(key, (k, current) -> {
+            if (current != waiter || --current.references > 0) {
+                return current;
+            }
+            ListenerContainerHolder.INSTANCE.removeMessageListener(current, current.topic);
+            return null;
+        });
+    }
+
+    /**
+     * 同一把锁的本地等待者。
+     *      每收到一条解锁通知释放一个许可，唤醒一个等待线程去重试加锁。
+     */
+    private static class LockWaiter implements MessageListener {
+        private final Semaphore latch = new Semaphore(0);
+
+        private final ChannelTopic topic;
+
+        /**
+         * 共用该订阅的等待线程数，只在 WAITERS.compute 中修改
+         */
+        private int references;
+
+        private LockWaiter(ChannelTopic topic) {
+            this.topic = topic;
+        }
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            latch.release();
+        }
+
+        /**
+         * 等待解锁通知，最多等到锁过期、等待超时或 NOTIFY_REPOLL_MILLIS
+         *
+         * @param ttl       锁的剩余有效期（毫秒），未知时小于等于 0
+         * @param remaining 剩余的等待时间（毫秒）
+         */
+        private void await(long ttl, long remaining) throws InterruptedException {
+            long millis = Math.min(NOTIFY_REPOLL_MILLIS, ttl > 0 ? Math.min(ttl, remaining) : remaining);
+            latch.tryAcquire(millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
     /**
      * 尝试获取锁，无阻塞方式。
      *
@@ -88,17 +426,22 @@ public class RedisLockUtil {
      * @return 如果成功获取锁，则返回 true；否则返回 false
      */
     public static boolean tryLock(String key, String requestId, long expireTime, TimeUnit timeUnit) {
+        long startNanos = System.nanoTime();
+        boolean locked = false;
         try {
             RedisTemplate<String, String> redisTemplate = getRedisTemplate();
             // 尝试设置锁，如果设置成功则启动续期任务
             Boolean result = redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + key, requestId, expireTime, timeUnit);
-            if (Boolean.TRUE.equals(result)) {
+            locked = Boolean.TRUE.equals(result);
+            if (locked) {
                 startRenewalTask(key, requestId, expireTime, timeUnit);
             }
-            return Boolean.TRUE.equals(result);
+            return locked;
         } catch (Exception e) {
             log.error("线程: {} 尝试加锁[{}]时发生异常", ThreadUtil.getCurrentThreadName(), key, e);
             return false;
+        } finally {
+            LockMetrics.recordAcquire(LockMetrics.Backend.REDIS, LockMetrics.LockType.LOCK, key, requestId, startNanos, locked);
         }
     }
 
@@ -114,6 +457,8 @@ public class RedisLockUtil {
      */
     public static boolean tryLockWithSpin(String key, String requestId, long expireTime, TimeUnit timeUnit, long timeout) {
         long start = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        boolean locked = false;
         try {
             RedisTemplate<String, String> redisTemplate = getRedisTemplate();
             for (;;) {
@@ -121,6 +466,7 @@ public class RedisLockUtil {
                 Boolean ret = redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + key, requestId, expireTime, timeUnit);
                 if (Boolean.TRUE.equals(ret)) {
                     startRenewalTask(key, requestId, expireTime, timeUnit);
+                    locked = true;
                     return true;
                 }
                 // 计算已等待的时间
@@ -141,6 +487,65 @@ public class RedisLockUtil {
         } catch (Exception e) {
             log.error("线程: {} 尝试自旋加锁[{}]时发生异常", ThreadUtil.getCurrentThreadName(), key, e);
             return false;
+        } finally {
+            LockMetrics.recordAcquire(LockMetrics.Backend.REDIS, LockMetrics.LockType.LOCK, key, requestId, startNanos, locked);
+        }
+    }
+
+    /**
+     * 尝试获取锁，等待期间订阅解锁通知而不是轮询。
+     *      加锁失败时订阅该锁的解锁频道，在本地信号量上阻塞，直到收到解锁通知、锁的剩余有效期结束
+     *      或等满 NOTIFY_REPOLL_MILLIS 才重试，订阅生效前错过的通知最多延迟一个重试间隔；
+     *      同一个 JVM 内等待同一把锁的线程共用一个订阅。
+     *
+     * @param key          锁的唯一标识符
+     * @param requestId    请求 ID，用于验证锁的所有权
+     * @param expireTime   锁的有效期时间
+     * @param timeUnit     锁有效期的时间单位
+     * @param timeout      等待的最大时间（毫秒）
+     * @return 如果成功获取锁，则返回 true；否则返回 false
+     */
+    public static boolean tryLockWithNotify(String key, String requestId, long expireTime, TimeUnit timeUnit, long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        long startNanos = System.nanoTime();
+        String expireMillis = String.valueOf(timeUnit.toMillis(expireTime));
+        LockWaiter waiter = null;
+        boolean locked = false;
+        try {
+            StringRedisTemplate redisTemplate = getRedisTemplate();
+            for (;;) {
+                // 加锁成功返回 null，否则返回锁的剩余有效期
+                Long ttl = redisTemplate.execute(TRY_LOCK_SCRIPT, Collections.singletonList(KEY_PREFIX + key), requestId, expireMillis);
+                if (ttl == null) {
+                    startRenewalTask(key, requestId, expireTime, timeUnit);
+                    locked = true;
+                    return true;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                if (waiter == null) {
+                    // 先订阅再重试一次，缩小解锁通知在订阅之前发布而被错过的窗口
+                    waiter = subscribe(key);
+                    continue;
+                }
+                waiter.await(ttl, remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread currentThread = Thread.currentThread();
+            String currentThreadName = currentThread.getName();
+            currentThread.interrupt();
+            log.warn("线程: {} 等待锁[{}]过程中线程被中断", currentThreadName, key, e);
+            return false;
+        } catch (Exception e) {
+            log.error("线程: {} 尝试等待加锁[{}]时发生异常", ThreadUtil.getCurrentThreadName(), key, e);
+            return false;
+        } finally {
+            if (waiter != null) {
+                unsubscribe(key, waiter);
+            }
+            LockMetrics.recordAcquire(LockMetrics.Backend.REDIS, LockMetrics.LockType.LOCK, key, requestId, startNanos, locked);
         }
     }
 
@@ -153,18 +558,16 @@ public class RedisLockUtil {
      */
     public static boolean unlock(String key, String requestId) {
         try {
-            RedisTemplate<String, String> redisTemplate = getRedisTemplate();
-            String lockKey = KEY_PREFIX + key;
-            Object currentValue = redisTemplate.opsForValue().get(lockKey);
-
-            if (requestId.equals(currentValue)) {
-                // 停止续期任务
-                stopRenewalTask(key, requestId);
-                return Boolean.TRUE.equals(redisTemplate.delete(lockKey));
-            } else {
-                log.warn("线程: {} 尝试解锁时发现请求ID不匹配: {} != {}", ThreadUtil.getCurrentThreadName(), requestId, currentValue);
-                return false;
+            // 先停止续期，避免看门狗在删除之后又续上
+            stopRenewalTask(key, requestId);
+            Long result = getRedisTemplate().execute(UNLOCK_SCRIPT, Collections.singletonList(KEY_PREFIX + key),
+                    requestId, UNLOCK_CHANNEL_PREFIX + key);
+            if (result != null && result > 0) {
+                LockMetrics.recordRelease(LockMetrics.Backend.REDIS, LockMetrics.LockType.LOCK, key, requestId);
+                return true;
             }
+            log.warn("线程: {} 尝试解锁[{}]时发现锁已过期或请求ID不匹配: {}", ThreadUtil.getCurrentThreadName(), key, requestId);
+            return false;
         } catch (Exception e) {
             log.error("线程: {} 尝试解锁[{}]时发生异常", ThreadUtil.getCurrentThreadName(), key, e);
             return false;
@@ -172,38 +575,147 @@ public class RedisLockUtil {
     }
 
     /**
-     * 尝试获取读锁（共享锁），无阻塞方式，使用 Lua 脚本确保原子性。
+     * 一次获取多把锁，要么全部成功，要么一把都不持有。
+     *      全部锁在一次 Lua 脚本中检查并加锁，与加锁顺序无关，不会因相互等待而死锁；
+     *      被占用时订阅冲突锁的解锁通知后重试。Redis Cluster 下这些锁名需要使用相同的 hash tag。
+     *      指标按每把锁分别记录加锁耗时与持有时间，事件日志按一次联锁记录。
      *
-     * @param key          锁的唯一标识符
+     * @param keys         锁的唯一标识符集合，重复的会被合并
      * @param requestId    请求 ID，用于验证锁的所有权
      * @param expireTime   锁的有效期时间
      * @param timeUnit     锁有效期的时间单位
-     * @return 如果成功获取读锁，则返回 true；否则返回 false
+     * @param timeout      等待的最大时间（毫秒），0 表示不等待
+     * @return 如果全部成功获取，则返回 true；否则返回 false
      */
-    public static boolean readLock(String key, String requestId, long expireTime, TimeUnit timeUnit) {
+    @SuppressWarnings("unchecked")
+    public static boolean tryLockAll(Collection<String> keys, String requestId, long expireTime, TimeUnit timeUnit, long timeout) {
+        List<String> sortedKeys = new ArrayList<>(new TreeSet<>(keys));
+        if (sortedKeys.isEmpty()) {
+            return true;
+        }
+        List<String> lockKeys = new ArrayList<>(sortedKeys.size());
+        for (String key : sortedKeys) {
+            lockKeys.add(KEY_PREFIX + key);
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        long startNanos = System.nanoTime();
+        String expireMillis = String.valueOf(timeUnit.toMillis(expireTime));
+        LockWaiter waiter = null;
+        String waitingKey = null;
+        boolean locked = false;
         try {
             StringRedisTemplate redisTemplate = getRedisTemplate();
-            // Lua 脚本：尝试增加读锁计数器，并设置过期时间（如果这是第一次获取读锁）
-            String script = "local counter = redis.call('INCR', KEYS[1]);" +
-                    "if counter == 1 then redis.call('PEXPIRE', KEYS[1], ARGV[1]); end;" +
-                    "return counter;";
-            DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>(script, Long.class);
-            List<String> keys = Arrays.asList(KEY_PREFIX + key + READ_LOCK_SUFFIX);
-            List<String> args = Arrays.asList(String.valueOf(TimeUnit.MILLISECONDS.convert(expireTime, timeUnit)));
-            Long result = redisTemplate.execute(redisScript, keys, args.toArray(new String[0]));
-            if (result != null && result >= 1) {
-                startRenewalTask(key + READ_LOCK_SUFFIX, requestId, expireTime, timeUnit);
+            for (;;) {
+                List<Long> result = redisTemplate.execute(TRY_LOCK_ALL_SCRIPT, lockKeys, requestId, expireMillis);
+                if (result == null || result.isEmpty()) {
+                    return false;
+                }
+                if (result.get(0) == 0) {
+                    for (String key : sortedKeys) {
+                        startRenewalTask(key, requestId, expireTime, timeUnit);
+                    }
+                    locked = true;
+                    return true;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                String conflictKey = sortedKeys.get(result.get(0).intValue() - 1);
+                if (!conflictKey.equals(waitingKey)) {
+                    boolean firstWait = waiter == null;
+                    if (waiter != null) {
+                        unsubscribe(waitingKey, waiter);
+                    }
+                    waiter = subscribe(conflictKey);
+                    waitingKey = conflictKey;
+                    if (firstWait) {
+                        // 先订阅再重试一次，缩小解锁通知在订阅之前发布而被错过的窗口
+                        continue;
+                    }
+                }
+                waiter.await(result.size() > 1 ? result.get(1) : -1L, remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread currentThread = Thread.currentThread();
+            String currentThreadName = currentThread.getName();
+            currentThread.interrupt();
+            log.warn("线程: {} 批量加锁{}过程中线程被中断", currentThreadName, sortedKeys, e);
+            return false;
+        } catch (Exception e) {
+            log.error("线程: {} 尝试批量加锁{}时发生异常", ThreadUtil.getCurrentThreadName(), sortedKeys, e);
+            return false;
+        } finally {
+            if (waiter != null) {
+                unsubscribe(waitingKey, waiter);
+            }
+            for (String key : sortedKeys) {
+                LockMetrics.recordAcquire(LockMetrics.Backend.REDIS, LockMetrics.LockType.LOCK, key, requestId, startNanos, locked);
+            }
+            LockEventLogger.record(LockEventLogger.Kind.MULTI, locked ? LockEventLogger.Event.ACQUIRED : LockEventLogger.Event.FAILED,
+                    sortedKeys.toString());
+        }
+    }
+
+    /**
+     * 一次释放 tryLockAll 获取的多把锁，只释放 requestId 匹配的锁。
+     *
+     * @param keys         锁的唯一标识符集合
+     * @param requestId    请求 ID，用于验证锁的所有权
+     * @return 如果全部成功释放，则返回 true；否则返回 false
+     */
+    public static boolean unlockAll(Collection<String> keys, String requestId) {
+        List<String> sortedKeys = new ArrayList<>(new TreeSet<>(keys));
+        if (sortedKeys.isEmpty()) {
+            return true;
+        }
+        List<String> lockKeys = new ArrayList<>(sortedKeys.size());
+        String[] args = new String[sortedKeys.size() + 1];
+        args[0] = requestId;
+        for (int i = 0; i < sortedKeys.size(); i++) {
+            String key = sortedKeys.get(i);
+            stopRenewalTask(key, requestId);
+            lockKeys.add(KEY_PREFIX + key);
+            args[i + 1] = UNLOCK_CHANNEL_PREFIX + key;
+        }
+        try {
+            Long released = getRedisTemplate().execute(UNLOCK_ALL_SCRIPT, lockKeys, (Object[]) args);
+            if (released != null && released == sortedKeys.size()) {
+                for (String key : sortedKeys) {
+                    LockMetrics.recordRelease(LockMetrics.Backend.REDIS, LockMetrics.LockType.LOCK, key, requestId);
+                }
+                LockEventLogger.record(LockEventLogger.Kind.MULTI, LockEventLogger.Event.RELEASED, sortedKeys.toString());
                 return true;
             }
+            LockEventLogger.record(LockEventLogger.Kind.MULTI, LockEventLogger.Event.NOT_HELD, sortedKeys.toString());
+            log.warn("线程: {} 批量解锁时有锁已过期或请求ID不匹配: {}, 释放数量: {}/{}", ThreadUtil.getCurrentThreadName(),
+                    requestId, released, sortedKeys.size());
             return false;
         } catch (Exception e) {
-            log.error("线程: {} 尝试获取读锁[{}]时发生异常", ThreadUtil.getCurrentThreadName(), key, e);
+            log.error("线程: {} 尝试批量解锁{}时发生异常", ThreadUtil.getCurrentThreadName(), sortedKeys, e);
             return false;
         }
     }
 
+    /**
+     * 尝试获取读锁（共享锁），无阻塞方式。
+     *      读写锁保存在同一个 hash 中：writer 字段为写锁持有者，r:{requestId} 字段为各读者的重入次数，
+     *      d:{requestId} 字段为各读者租约的截止时间，租约过期的读者在下一次加锁或续期时被清除。
+     *      没有其他写者时即可加读锁，写锁持有者也可以再加读锁（锁降级）。一次加锁只需一次 Redis 调用。
+     *
+     * @param key          锁的唯一标识符
+     * @param requestId    请求 ID，用于验证锁的所有权
+     * @param expireTime   锁的有效期时间
+     * @param timeUnit     锁有效期的时间单位
+     * @return 如果成功获取读锁，则返回 true；否则返回 false
+     */
+    public static boolean readLock(String key, String requestId, long expireTime, TimeUnit timeUnit) {
+        return acquireReadWriteLock(READ_LOCK_SCRIPT, LockMetrics.LockType.READ, key, requestId, expireTime, timeUnit, "读锁");
+    }
+
     /**
      * 尝试获取写锁（独占锁），无阻塞方式。
+     *      只有在没有读者、也没有其他写者时才能加写锁，同一 requestId 可重入。
      *
      * @param key          锁的唯一标识符
      * @param requestId    请求 ID，用于验证锁的所有权
@@ -212,51 +724,111 @@ public class RedisLockUtil {
      * @return 如果成功获取写锁，则返回 true；否则返回 false
      */
     public static boolean writeLock(String key, String requestId, long expireTime, TimeUnit timeUnit) {
-        return tryLock(key, requestId, expireTime, timeUnit);
+        return acquireReadWriteLock(WRITE_LOCK_SCRIPT, LockMetrics.LockType.WRITE, key, requestId, expireTime, timeUnit, "写锁");
     }
 
     /**
      * 尝试释放读锁（共享锁），使用 Lua 脚本确保原子性。
      *
      * @param key          锁的唯一标识符
-     * @param requestId    请求 ID，用于查找对应的续期任务
+     * @param requestId    请求 ID，用于验证锁的所有权
      * @return 如果成功解锁，则返回 true；否则返回 false
      */
     public static boolean readUnlock(String key, String requestId) {
+        return releaseReadWriteLock(READ_UNLOCK_SCRIPT, LockMetrics.LockType.READ, key, requestId, "读锁");
+    }
+
+    /**
+     * 尝试释放写锁（独占锁），使用 Lua 脚本确保原子性。
+     *
+     * @param key          锁的唯一标识符
+     * @param requestId    请求 ID，用于验证锁的所有权
+     * @return 如果成功解锁，则返回 true；否则返回 false
+     */
+    public static boolean writeUnlock(String key, String requestId) {
+        return releaseReadWriteLock(WRITE_UNLOCK_SCRIPT, LockMetrics.LockType.WRITE, key, requestId, "写锁");
+    }
+
+    /**
+     * 执行读锁或写锁的加锁脚本，成功后登记本地持有者。
+     */
+    private static boolean acquireReadWriteLock(DefaultRedisScript<Long> script, LockMetrics.LockType type, String key,
+                                                String requestId, long expireTime, TimeUnit timeUnit, String lockName) {
+        long startNanos = System.nanoTime();
+        boolean locked = false;
         try {
-            StringRedisTemplate redisTemplate = getRedisTemplate();
-            // Lua 脚本：尝试减少读锁计数器，如果计数器归零则删除锁
-            String script = "local counter = redis.call('DECR', KEYS[1]);" +
-                    "if counter == 0 then redis.call('DEL', KEYS[1]); end;" +
-                    "return counter;";
-            DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>(script, Long.class);
-            List<String> keys = Arrays.asList(KEY_PREFIX + key + READ_LOCK_SUFFIX);
-            Long result = redisTemplate.execute(redisScript, keys);
+            Long result = getRedisTemplate().execute(script, Collections.singletonList(KEY_PREFIX + key + RW_LOCK_SUFFIX),
+                    requestId, String.valueOf(timeUnit.toMillis(expireTime)));
+            locked = result != null && result > 0;
+            if (locked) {
+                retainReadWriteRenewal(key, requestId, expireTime, timeUnit);
+            }
+            return locked;
+        } catch (Exception e) {
+            log.error("线程: {} 尝试获取{}[{}]时发生异常", ThreadUtil.getCurrentThreadName(), lockName, key, e);
+            return false;
+        } finally {
+            LockMetrics.recordAcquire(LockMetrics.Backend.REDIS, type, key, requestId, startNanos, locked);
+        }
+    }
+
+    /**
+     * 执行读锁或写锁的解锁脚本，成功后注销本地持有者。
+     */
+    private static boolean releaseReadWriteLock(DefaultRedisScript<Long> script, LockMetrics.LockType type, String key,
+                                                String requestId, String lockName) {
+        try {
+            Long result = getRedisTemplate().execute(script, Collections.singletonList(KEY_PREFIX + key + RW_LOCK_SUFFIX), requestId);
             if (result != null && result >= 0) {
-                stopRenewalTask(key + READ_LOCK_SUFFIX, requestId);
+                releaseReadWriteRenewal(key, requestId);
+                if (result == 0) {
+                    LockMetrics.recordRelease(LockMetrics.Backend.REDIS, type, key, requestId);
+                }
                 return true;
             }
+            log.warn("线程: {} 尝试释放{}[{}]时发现未持有该锁: {}", ThreadUtil.getCurrentThreadName(), lockName, key, requestId);
             return false;
         } catch (Exception e) {
-            log.error("线程: {} 尝试释放读锁[{}]时发生异常", ThreadUtil.getCurrentThreadName(), key, e);
+            log.error("线程: {} 尝试释放{}[{}]时发生异常", ThreadUtil.getCurrentThreadName(), lockName, key, e);
             return false;
         }
     }
 
     /**
-     * 尝试释放写锁（独占锁）。
-     *
-     * @param key          锁的唯一标识符
-     * @param requestId    请求 ID，用于验证锁的所有权
-     * @return 如果成功解锁，则返回 true；否则返回 false
+     * 本地新增一个读写锁持有者，同一把读写锁的所有本地读者与写者共用一个续期任务。
+     *      持有者计数保存在续期任务中，续期失败丢弃任务时计数随之丢弃，之后的持有者会登记新的任务。
      */
-    public static boolean writeUnlock(String key, String requestId) {
-        return unlock(key, requestId);
+    private static void retainReadWriteRenewal(String key, String requestId, long expireTime, TimeUnit timeUnit) {
+        String taskKey = key + RW_LOCK_SUFFIX;
+        String taskRequestId = RW_RENEWAL_ID_PREFIX + key;
+        RENEWAL_TASKS.compute(renewalId(taskKey, taskRequestId), (id, task) -> {
+            if (task == null) {
+                task = new RenewalTask(taskKey, taskRequestId, expireTime, timeUnit, new ConcurrentHashMap<>());
+            }
+            task.holders.merge(requestId, 1, Integer::sum);
+            task.retains++;
+            return task;
+        });
+        WatchdogHolder.start();
+    }
+
+    /**
+     * 本地减少一个读写锁持有者，最后一个持有者释放时停止续期任务。
+     */
+    private static void releaseReadWriteRenewal(String key, String requestId) {
+        RENEWAL_TASKS.computeIfPresent(renewalId(key + RW_LOCK_SUFFIX, RW_RENEWAL_ID_PREFIX + key), (id, task) -> {
+            task.holders.computeIfPresent(requestId, (r, count) -> count > 1 ? count - 1 : null);
+            if (!task.holders.isEmpty()) {
+                return task;
+            }
+            task.stopRenewal();
+            return null;
+        });
     }
 
     /**
      * 启动锁续期任务。
-     *      创建一个新的续期任务，并将其与 requestId 关联起来以便后续停止。
+     *      登记一个续期任务交给共享的看门狗线程定期续期，不再为每把锁单独创建线程。
      *
      * @param key          锁的唯一标识符
      * @param requestId    请求 ID，用于验证锁的所有权
@@ -264,31 +836,180 @@ public class RedisLockUtil {
      * @param timeUnit     锁有效期的时间单位
      */
     private static void startRenewalTask(String key, String requestId, long expireTime, TimeUnit timeUnit) {
-        RenewalTask task = new RenewalTask(key, requestId, expireTime, timeUnit);
-        task.start();
+        RenewalTask task = new RenewalTask(key, requestId, expireTime, timeUnit, null);
         // 使用全局变量存储任务以便后续停止
-        RENEWAL_TASKS.put(requestId, task);
+        RenewalTask previous = RENEWAL_TASKS.put(task.id, task);
+        if (previous != null) {
+            previous.stopRenewal();
+        }
+        WatchdogHolder.start();
     }
 
     /**
      * 停止锁续期任务。
-     *      根据 requestId 查找并停止对应的续期任务。
+     *      根据锁的唯一标识符与 requestId 查找并停止对应的续期任务。
      *
      * @param key          锁的唯一标识符
      * @param requestId    请求 ID，用于查找对应的续期任务
      */
     private static void stopRenewalTask(String key, String requestId) {
-        RenewalTask task = RENEWAL_TASKS.remove(requestId);
+        RenewalTask task = RENEWAL_TASKS.remove(renewalId(key, requestId));
         if (task != null) {
             task.stopRenewal();
         }
     }
 
+    private static String renewalId(String key, String requestId) {
+        return key + ":" + requestId;
+    }
+
     /**
-     * 续期任务类。
-     *      该类继承自 Thread 类，用于定期更新锁的有效期，防止锁提前过期。
+     * 看门狗的一次巡检。
+     *      收集本轮到期的续期任务，按 RENEWAL_BATCH_SIZE 分批，每批只执行一次批量续期脚本。
      */
-    private static class RenewalTask extends Thread {
+    private static void renewDueLocks() {
+        try {
+            long now = System.currentTimeMillis();
+            List<RenewalTask> dueTasks = new ArrayList<>();
+            for (RenewalTask task : RENEWAL_TASKS.values()) {
+                if (task.isDue(now)) {
+                    dueTasks.add(task);
+                }
+            }
+            if (renewBySlot) {
+                renewGroupedBySlot(dueTasks, now);
+            } else {
+                renewInBatches(dueTasks, now);
+            }
+        } catch (Exception e) {
+            // 异常不能抛出，否则调度器会取消后续的巡检
+            log.error("线程: {} 锁续期过程中发生异常", ThreadUtil.getCurrentThreadName(), e);
+        }
+    }
+
+    private static void renewInBatches(List<RenewalTask> tasks, long now) {
+        for (int from = 0; from < tasks.size(); from += RENEWAL_BATCH_SIZE) {
+            renewBatch(tasks.subList(from, Math.min(from + RENEWAL_BATCH_SIZE, tasks.size())), now);
+        }
+    }
+
+    /**
+     * Redis Cluster 下按锁键所在的槽位分组，每组各自分批续期
+     */
+    private static void renewGroupedBySlot(List<RenewalTask> tasks, long now) {
+        Map<Integer, List<RenewalTask>> slots = new HashMap<>();
+        for (RenewalTask task : tasks) {
+            slots.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(KEY_PREFIX + task.key), slot -> new ArrayList<>()).add(task);
+        }
+        for (List<RenewalTask> slotTasks : slots.values()) {
+            renewInBatches(slotTasks, now);
+        }
+    }
+
+    /**
+     * 异常链中是否包含 CROSSSLOT 错误，即脚本的 KEYS 不在同一个槽位
+     */
+    private static boolean isCrossSlotError(Throwable e) {
+        for (Throwable current = e; current != null; current = current.getCause()) {
+            if (current.getMessage() != null && current.getMessage().contains("CROSSSLOT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 使用 Lua 脚本批量续期，只有持有相同 requestId 的锁才会被续期，读写锁传入本地所有持有者的 requestId。
+     *      续期失败说明锁已过期或已被他人持有，不再续期；脚本执行异常时保留任务，下一轮重试。
+     *      读写锁在续期请求发出后又有新的持有者登记时不丢弃任务，下一轮带上新的持有者重试。
+     *
+     * @param tasks 本批到期的续期任务
+     * @param now   本轮巡检的时间戳
+     */
+    @SuppressWarnings("unchecked")
+    private static void renewBatch(List<RenewalTask> tasks, long now) {
+        List<String> keys = new ArrayList<>(tasks.size());
+        List<String> args = new ArrayList<>(tasks.size() * 3);
+        for (RenewalTask task : tasks) {
+            keys.add(KEY_PREFIX + task.key);
+            args.add(String.valueOf(task.expireMillis));
+            if (task.holders == null) {
+                args.add("1");
+                args.add(task.requestId);
+            } else {
+                task.renewingRetains = task.retains;
+                List<String> holders = new ArrayList<>(task.holders.keySet());
+                args.add(String.valueOf(holders.size()));
+                args.addAll(holders);
+            }
+        }
+        List<Long> results;
+        try {
+            results = getRedisTemplate().execute(BATCH_EXTEND_SCRIPT, keys, args.toArray());
+        } catch (Exception e) {
+            if (!renewBySlot && tasks.size() > 1 && isCrossSlotError(e)) {
+                // 只会发生一次：之后的巡检都按槽位分批，本批立即按槽位重试，避免锁在下一轮之前过期
+                log.warn("批量续期的锁不在同一个槽位，改为按槽位分批续期");
+                renewBySlot = true;
+                renewGroupedBySlot(tasks, now);
+                return;
+            }
+            log.error("线程: {} 批量续期{}把锁时发生异常", ThreadUtil.getCurrentThreadName(), tasks.size(), e);
+            return;
+        }
+        int renewed = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            RenewalTask task = tasks.get(i);
+            if (results != null && i < results.size() && results.get(i) != null && results.get(i) > 0) {
+                task.scheduleNext(now);
+                renewed++;
+            } else {
+                RENEWAL_TASKS.computeIfPresent(task.id, (id, current) -> {
+                    if (current != task || (task.holders != null && task.retains != task.renewingRetains)) {
+                        return current;
+                    }
+                    log.warn("锁[{}]续期失败，停止续期，请求ID: {}", task.key, task.requestId);
+                    task.stopRenewal();
+                    return null;
+                });
+            }
+        }
+        LockMetrics.recordRenewal(LockMetrics.Backend.REDIS, renewed, tasks.size() - renewed);
+    }
+
+    /**
+     * 使用 Holder 模式懒加载看门狗：所有锁共用一个调度线程，每 WATCHDOG_TICK_MILLIS 巡检一次
+     */
+    private static class WatchdogHolder {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-lock-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            INSTANCE.scheduleWithFixedDelay(RedisLockUtil::renewDueLocks,
+                    WATCHDOG_TICK_MILLIS, WATCHDOG_TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * 触发类加载，首次登记续期任务时才启动看门狗
+         */
+        private static void start() {
+            // 类初始化已完成调度
+        }
+    }
+
+    /**
+     * 续期任务。
+     *      记录一把锁的续期参数与下次续期时间，由看门狗线程统一执行续期。
+     */
+    private static class RenewalTask {
+        /**
+         * 续期任务在 RENEWAL_TASKS 中的键。
+         */
+        private final String id;
+
         /**
          * 锁的唯一标识符。
          */
@@ -300,14 +1021,34 @@ public class RedisLockUtil {
         private final String requestId;
 
         /**
-         * 锁的有效期时间。
+         * 锁的有效期（毫秒）。
          */
-        private final long expireTime;
+        private final long expireMillis;
 
         /**
-         * 锁有效期的时间单位。
+         * 读写锁的本地持有者 requestId 与重入次数，只在 RENEWAL_TASKS.compute 中修改；普通锁为 null
          */
-        private final TimeUnit timeUnit;
+        private final Map<String, Integer> holders;
+
+        /**
+         * 读写锁登记持有者的累计次数，只在 RENEWAL_TASKS.compute 中修改
+         */
+        private volatile int retains;
+
+        /**
+         * 发出本次续期请求时的 retains，只由看门狗线程读写
+         */
+        private int renewingRetains;
+
+        /**
+         * 续期间隔（毫秒），锁有效期的三分之一
+         */
+        private final long intervalMillis;
+
+        /**
+         * 下次续期的时间戳，只由看门狗线程更新
+         */
+        private volatile long nextRenewalAt;
 
         /**
          * 控制续期任务是否继续运行的标志。
@@ -322,36 +1063,30 @@ public class RedisLockUtil {
          * @param requestId    请求 ID，用于验证锁的所有权
          * @param expireTime   锁的有效期时间
          * @param timeUnit     锁有效期的时间单位
+         * @param holders      读写锁的本地持有者，普通锁为 null
          */
-        public RenewalTask(String key, String requestId, long expireTime, TimeUnit timeUnit) {
+        public RenewalTask(String key, String requestId, long expireTime, TimeUnit timeUnit, Map<String, Integer> holders) {
+            this.id = renewalId(key, requestId);
             this.key = key;
             this.requestId = requestId;
-            this.expireTime = expireTime;
-            this.timeUnit = timeUnit;
+            this.expireMillis = timeUnit.toMillis(expireTime);
+            this.holders = holders;
+            this.intervalMillis = Math.max(1L, expireMillis / 3);
+            this.nextRenewalAt = System.currentTimeMillis() + intervalMillis;
         }
 
         /**
-         * 执行续期任务。
-         *      定期检查并延长锁的有效期，直到任务被显式停止。
+         * 是否已到续期时间
          */
-        @Override
-        public void run() {
-            while (running) {
-                try {
-                    // 定期休眠一段时间，例如锁有效期的三分之一
-                    Thread.sleep(timeUnit.toMillis(expireTime) / 3);
-                    extendLock(key, requestId, expireTime, timeUnit);
-                } catch (InterruptedException e) {
-                    Thread currentThread = Thread.currentThread();
-                    String currentThreadName = currentThread.getName();
-                    currentThread.interrupt();
-                    log.warn("线程: {} 锁续期线程被中断", currentThreadName, e);
-                    break;
-                } catch (Exception e) {
-                    log.error("线程: {} 锁续期过程中发生异常", ThreadUtil.getCurrentThreadName(), e);
-                    break;
-                }
-            }
+        private boolean isDue(long now) {
+            return running && now >= nextRenewalAt;
+        }
+
+        /**
+         * 续期成功后安排下一次续期
+         */
+        private void scheduleNext(long now) {
+            this.nextRenewalAt = now + intervalMillis;
         }
 
         /**
@@ -361,30 +1096,4 @@ public class RedisLockUtil {
             this.running = false;
         }
     }
-
-    /**
-     * 使用 Lua 脚本安全地延长锁的有效期。
-     *      只有持有相同 requestId 的客户端能够成功延长锁的有效期。
-     *
-     * @param key          锁的唯一标识符
-     * @param requestId    请求 ID，用于验证锁的所有权
-     * @param expireTime   锁的有效期时间
-     * @param timeUnit     锁有效期的时间单位
-     * @return 如果成功延长锁的有效期，则返回 true；否则返回 false
-     */
-    private static boolean extendLock(String key, String requestId, long expireTime, TimeUnit timeUnit) {
-        try {
-            RedisTemplate<String, String> redisTemplate = getRedisTemplate();
-            String script = "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) else return 0 end";
-            DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>(script, Long.class);
-            // 使用 Arrays.asList() 创建列表
-            List<String> keys = Arrays.asList(KEY_PREFIX + key);
-            List<String> args = Arrays.asList(requestId, String.valueOf(TimeUnit.MILLISECONDS.convert(expireTime, timeUnit)));
-            Long result = redisTemplate.execute(redisScript, keys, args.toArray(new String[0]));
-            return result != null && result > 0;
-        } catch (Exception e) {
-            log.error("线程: {} 尝试延长锁时发生异常: {}", ThreadUtil.getCurrentThreadName(), key, e);
-            return false;
-        }
-    }
 }
@@ -0,0 +1,273 @@
+package com.liuiie.demo.utils.lock;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Redis 近端缓存
+ *      在 {@link RedisUtil} 的 get、hmGet 之前加一层容量与存活时间都有上限的本地缓存，只缓存配置的 key 前缀。
+ *      RedisUtil 写入或删除这些 key 后，先清除本地缓存，再通过 Redis pub/sub 通知其他节点清除。
+ *      pub/sub 不保证送达（例如断线期间的通知会丢失），本地缓存的存活时间是不一致时间的上限。
+ *      绕过 RedisUtil 直接修改 Redis 的写入不会触发通知，同样只能等存活时间到期。
+ *      命中时返回的是本地缓存中的同一个对象，不做拷贝，调用方必须把读取到的值当作只读，
+ *      修改它会影响本节点之后的所有读取，且不会写回 Redis
+ *
+ * @author Liuiie
+ * @since 2026/10/18 21:00
+ */
+@Log4j2
+public class RedisNearCache implements MessageListener {
+    public static final String INVALIDATE_CHANNEL = "NEAR_CACHE_INVALIDATE";
+
+    /**
+     * 通知消息类型：清除单个 key
+     */
+    private static final char MESSAGE_KEY = 'K';
+    /**
+     * 通知消息类型：清除全部
+     */
+    private static final char MESSAGE_ALL = 'A';
+
+    /**
+     * Redis 中不存在的值也缓存，避免不存在的配置 key 每次都访问 Redis
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    /**
+     * 发送通知使用字符串序列化，消息体不经过值序列化器
+     */
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final String[] prefixes;
+
+    private final Cache<String, Object> values;
+
+    /**
+     * 哈希 key 到各字段值的缓存，整个哈希一起失效
+     */
+    private final Cache<String, Map<Object, Object>> hashes;
+
+    /**
+     * 清除次数。读取 Redis 前后该值不同时不回填本地缓存，回填后该值变化时撤销回填，
+     * 防止读取期间收到的清除通知被随后回填的旧值覆盖
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param stringRedisTemplate 发送清除通知使用的 StringRedisTemplate
+     * @param listenerContainer   订阅清除通知的监听容器
+     * @param prefixes            启用近端缓存的 key 前缀
+     * @param maximumSize         本地缓存最多保存的 key 数量（值与哈希分别计算）
+     * @param expireAfterWrite    本地缓存的存活时间
+     * @param timeUnit            存活时间的单位
+     */
+    public RedisNearCache(StringRedisTemplate stringRedisTemplate, RedisMessageListenerContainer listenerContainer,
+                          List<String> prefixes, long maximumSize, long expireAfterWrite, TimeUnit timeUnit) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.prefixes = prefixes.toArray(new String[0]);
+        this.values = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite, timeUnit)
+                .build();
+        this.hashes = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite, timeUnit)
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * key 是否启用了近端缓存
+     *
+     * @param key 关键字
+     * @return 匹配任一前缀时返回 true
+     */
+    public boolean isCached(String key) {
+        for (String prefix : prefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取值，本地未命中时通过 loader 读取 Redis 并回填
+     *
+     * @param key    关键字
+     * @param loader 读取 Redis 的方法
+     * @return 值
+     */
+    Object get(String key, Supplier<Object> loader) {
+        Object value = values.getIfPresent(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            long version = invalidations.get();
+            value = loader.get();
+            value = value == null ? NULL_VALUE : value;
+            if (version == invalidations.get()) {
+                values.put(key, value);
+                if (version != invalidations.get()) {
+                    // 回填与清除并发，撤销可能已过期的回填
+                    values.invalidate(key);
+                }
+            }
+        }
+        return value == NULL_VALUE ? null : value;
+    }
+
+    /**
+     * 读取哈希字段，本地未命中时通过 loader 读取 Redis 并回填；hashKey 为 null 时不经过本地缓存
+     *
+     * @param key     关键字
+     * @param hashKey 哈希关键字
+     * @param loader  读取 Redis 的方法
+     * @return 值
+     */
+    Object hashGet(String key, Object hashKey, Supplier<Object> loader) {
+        if (hashKey == null) {
+            // 字段缓存不能保存 null 键
+            return loader.get();
+        }
+        Map<Object, Object> fields = hashes.getIfPresent(key);
+        Object value = fields == null ? null : fields.get(hashKey);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            long version = invalidations.get();
+            value = loader.get();
+            value = value == null ? NULL_VALUE : value;
+            if (version == invalidations.get()) {
+                if (fields == null) {
+                    fields = getOrCreateFields(key);
+                }
+                fields.put(hashKey, value);
+                if (version != invalidations.get()) {
+                    hashes.invalidate(key);
+                }
+            }
+        }
+        return value == NULL_VALUE ? null : value;
+    }
+
+    /**
+     * 清除本节点的 key 并通知其他节点
+     *
+     * @param key 关键字
+     */
+    void invalidate(String key) {
+        invalidateLocal(key);
+        publish(MESSAGE_KEY + key);
+    }
+
+    /**
+     * 清除本节点的全部缓存并通知其他节点，用于按模式删除等无法确定具体 key 的写入
+     */
+    void invalidateAll() {
+        invalidateAllLocal();
+        publish(String.valueOf(MESSAGE_ALL));
+    }
+
+    /**
+     * 本地缓存命中率，值与哈希合并计算；没有请求时返回 1.0
+     *
+     * @return 命中率
+     */
+    public double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 1.0 : (double) hitCount / total;
+    }
+
+    /**
+     * 本地缓存命中次数
+     *
+     * @return 次数
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * 本地缓存未命中次数
+     *
+     * @return 次数
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 本地缓存的 key 数量
+     *
+     * @return 数量
+     */
+    public long size() {
+        return values.size() + hashes.size();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.isEmpty()) {
+            return;
+        }
+        if (body.charAt(0) == MESSAGE_ALL) {
+            invalidateAllLocal();
+        } else if (body.charAt(0) == MESSAGE_KEY) {
+            invalidateLocal(body.substring(1));
+        }
+    }
+
+    private Map<Object, Object> getOrCreateFields(String key) {
+        try {
+            return hashes.get(key, ConcurrentHashMap::new);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void invalidateLocal(String key) {
+        invalidations.incrementAndGet();
+        values.invalidate(key);
+        hashes.invalidate(key);
+    }
+
+    private void invalidateAllLocal() {
+        invalidations.incrementAndGet();
+        values.invalidateAll();
+        hashes.invalidateAll();
+    }
+
+    private void publish(String message) {
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, message);
+        } catch (Exception e) {
+            // 写入已经成功，通知失败时其他节点只能等本地缓存过期
+            log.error("发送近端缓存清除通知失败: {}", message, e);
+        }
+    }
+}
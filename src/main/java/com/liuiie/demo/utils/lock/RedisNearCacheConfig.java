@@ -0,0 +1,51 @@
+package com.liuiie.demo.utils.lock;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 近端缓存配置
+ *      开启后 RedisUtil 对指定前缀的 key 先读本地缓存，命中率等指标注册到 MeterRegistry
+ *
+ * @author Liuiie
+ * @since 2026/10/18 21:10
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "redis.near-cache", name = "enabled", havingValue = "true")
+public class RedisNearCacheConfig {
+    @Value("${redis.near-cache.prefixes}")
+    private List<String> prefixes;
+
+    @Value("${redis.near-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${redis.near-cache.expire-after-write:5000}")
+    private long expireAfterWrite;
+
+    @Bean
+    public RedisNearCache redisNearCache(StringRedisTemplate stringRedisTemplate,
+                                         RedisMessageListenerContainer redisMessageListenerContainer,
+                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        RedisNearCache nearCache = new RedisNearCache(stringRedisTemplate, redisMessageListenerContainer,
+                prefixes, maximumSize, expireAfterWrite, TimeUnit.MILLISECONDS);
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("redis.near.cache.hit.ratio", nearCache, RedisNearCache::hitRatio)
+                    .description("Redis 近端缓存命中率")
+                    .register(registry);
+            Gauge.builder("redis.near.cache.size", nearCache, RedisNearCache::size)
+                    .description("Redis 近端缓存的 key 数量")
+                    .register(registry);
+        });
+        return nearCache;
+    }
+}
@@ -1,18 +1,32 @@
 package com.liuiie.demo.utils.lock;
 
+import com.google.common.util.concurrent.RateLimiter;
 import com.liuiie.demo.utils.common.SpringContextUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.SetOperations;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.data.redis.core.ZSetOperations;
-import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 /**
  * RedisUtil
@@ -23,6 +37,17 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class RedisUtil {
     public static final String BEAN_REDIS_NAME = "redisTemplate";
+    public static final String BEAN_NEAR_CACHE_NAME = "redisNearCache";
+
+    /**
+     * 按模式删除时每批 SCAN 与 UNLINK 的 key 数量
+     */
+    public static final int DEFAULT_SCAN_BATCH_SIZE = 500;
+
+    /**
+     * 批量操作时单条 MGET 或单次管道最多包含的 key 数量，避免单条命令与管道回包过大
+     */
+    public static final int MULTI_KEY_BATCH_SIZE = 1000;
 
     /**
      * 使用 Holder 模式进行懒加载
@@ -42,10 +67,37 @@ public class RedisUtil {
         }
     }
 
+    /**
+     * 使用 Holder 模式懒加载近端缓存，未开启时为 null
+     */
+    private static class NearCacheHolder {
+        private static final RedisNearCache INSTANCE = SpringContextUtil.containsBean(BEAN_NEAR_CACHE_NAME)
+                ? SpringContextUtil.getBean(BEAN_NEAR_CACHE_NAME, RedisNearCache.class)
+                : null;
+    }
+
     private static RedisTemplate<String, Object> getRedisTemplate() {
         return RedisUtil.RedisTemplateHolder.INSTANCE;
     }
 
+    /**
+     * key 启用了近端缓存时返回近端缓存，否则返回 null
+     */
+    private static RedisNearCache nearCache(String key) {
+        RedisNearCache nearCache = NearCacheHolder.INSTANCE;
+        return nearCache != null && nearCache.isCached(key) ? nearCache : null;
+    }
+
+    /**
+     * 写入后清除近端缓存
+     */
+    private static void invalidateNearCache(String key) {
+        RedisNearCache nearCache = nearCache(key);
+        if (nearCache != null) {
+            nearCache.invalidate(key);
+        }
+    }
+
     /**
      * 写入缓存
      *
@@ -59,6 +111,7 @@ public class RedisUtil {
             ValueOperations<String, Object> operations = getRedisTemplate().opsForValue();
             operations.set(key, value);
             result = true;
+            invalidateNearCache(key);
         } catch (Exception e) {
             log.error("写入缓存异常: {}", e.getMessage());
         }
@@ -66,7 +119,7 @@ public class RedisUtil {
     }
 
     /**
-     * 写入缓存设置时效时间
+     * 写入缓存设置时效时间，一条 SET EX 命令完成，写入与过期时间原子生效
      *
      * @param key   关键字
      * @param value 值
@@ -77,9 +130,9 @@ public class RedisUtil {
         boolean result = false;
         try {
             ValueOperations<String, Object> operations = getRedisTemplate().opsForValue();
-            operations.set(key, value);
-            getRedisTemplate().expire(key, expireTime, TimeUnit.SECONDS);
+            operations.set(key, value, expireTime, TimeUnit.SECONDS);
             result = true;
+            invalidateNearCache(key);
         } catch (Exception e) {
             log.error("写入缓存设置失效异常: {}", e.getMessage());
         }
@@ -98,6 +151,7 @@ public class RedisUtil {
         try {
             getRedisTemplate().opsForValue().getAndSet(key, value);
             result = true;
+            invalidateNearCache(key);
         } catch (Exception e) {
             log.error("更新缓存异常: {}", e.getMessage());
         }
@@ -105,13 +159,17 @@ public class RedisUtil {
     }
 
     /**
-     * 批量删除对应的value
+     * 批量删除对应的value，一条 DEL 命令完成
      *
      * @param keys 关键字集合
      */
     public void remove(final String... keys) {
+        if (keys.length == 0) {
+            return;
+        }
+        getRedisTemplate().delete(Arrays.asList(keys));
         for (String key : keys) {
-            remove(key);
+            invalidateNearCache(key);
         }
     }
 
@@ -119,23 +177,86 @@ public class RedisUtil {
      * 批量删除key
      *
      * @param pattern 模式
+     * @return 删除的 key 数量
      */
-    public void removePattern(final String pattern) {
-        Set<String> keys = getRedisTemplate().keys(pattern);
-        if (!CollectionUtils.isEmpty(keys)) {
-            getRedisTemplate().delete(keys);
+    public long removePattern(final String pattern) {
+        return removePattern(pattern, DEFAULT_SCAN_BATCH_SIZE, 0, null);
+    }
+
+    /**
+     * 按模式批量删除key。
+     *      使用 SCAN 游标增量遍历，每攒够一批就用 UNLINK 删除（内存回收交给 Redis 后台线程），
+     *      单条命令的耗时与 key 总数无关，不会像 KEYS 与大批量 DEL 那样长时间阻塞 Redis。
+     *      遍历期间新写入的匹配 key 不保证被删除
+     *
+     * @param pattern          模式
+     * @param batchSize        每批 SCAN 的 COUNT 与每次 UNLINK 的 key 数量
+     * @param maxKeysPerSecond 每秒最多删除的 key 数量，小于等于 0 时不限速
+     * @param listener         进度监听，可为 null
+     * @return 删除的 key 数量
+     */
+    public long removePattern(final String pattern, int batchSize, double maxKeysPerSecond, ScanProgressListener listener) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        RateLimiter rateLimiter = maxKeysPerSecond > 0 ? RateLimiter.create(maxKeysPerSecond) : null;
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        long[] progress = new long[2];
+        try {
+            getRedisTemplate().execute((RedisCallback<Void>) connection -> {
+                byte[][] batch = new byte[batchSize][];
+                int size = 0;
+                try (Cursor<byte[]> cursor = connection.scan(options)) {
+                    while (cursor.hasNext()) {
+                        batch[size++] = cursor.next();
+                        progress[0]++;
+                        if (size == batchSize) {
+                            progress[1] += unlinkBatch(connection, batch, size, rateLimiter);
+                            size = 0;
+                            notifyProgress(listener, progress);
+                        }
+                    }
+                }
+                if (size > 0) {
+                    progress[1] += unlinkBatch(connection, batch, size, rateLimiter);
+                    notifyProgress(listener, progress);
+                }
+                return null;
+            });
+        } finally {
+            // 中途失败时已删除的部分同样需要清除
+            if (NearCacheHolder.INSTANCE != null && progress[1] > 0) {
+                NearCacheHolder.INSTANCE.invalidateAll();
+            }
+        }
+        log.info("按模式删除缓存完成: pattern={}, 扫描 {} 个, 删除 {} 个", pattern, progress[0], progress[1]);
+        return progress[1];
+    }
+
+    private static long unlinkBatch(RedisConnection connection,
+                                    byte[][] batch, int size, RateLimiter rateLimiter) {
+        if (rateLimiter != null) {
+            rateLimiter.acquire(size);
+        }
+        byte[][] keys = size == batch.length ? batch : Arrays.copyOf(batch, size);
+        Long unlinked = connection.unlink(keys);
+        return unlinked == null ? 0L : unlinked;
+    }
+
+    private static void notifyProgress(ScanProgressListener listener, long[] progress) {
+        if (listener != null) {
+            listener.onProgress(progress[0], progress[1]);
         }
     }
 
     /**
-     * 删除对应的value
+     * 删除对应的value，key 不存在时 DEL 直接返回 0，无需先判断是否存在
      *
      * @param key 关键字
      */
     public void remove(final String key) {
-        if (exists(key) != null && exists(key)) {
-            getRedisTemplate().delete(key);
-        }
+        getRedisTemplate().delete(key);
+        invalidateNearCache(key);
     }
 
     /**
@@ -149,16 +270,93 @@ public class RedisUtil {
     }
 
     /**
-     * 读取缓存
+     * 读取缓存，key 启用了近端缓存时先读本地缓存；命中时返回的是共享对象，不能修改
      *
      * @param key 关键字
      * @return 值
      */
     public Object get(final String key) {
+        RedisNearCache nearCache = nearCache(key);
+        if (nearCache != null) {
+            return nearCache.get(key, () -> getRedisTemplate().opsForValue().get(key));
+        }
         ValueOperations<String, Object> operations = getRedisTemplate().opsForValue();
         return operations.get(key);
     }
 
+    /**
+     * 批量读取缓存（MGET），不经过近端缓存
+     *
+     * @param keys 关键字集合
+     * @return 值，顺序与 keys 的迭代顺序一致，不存在的 key 对应 null
+     */
+    public List<Object> mGet(final Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ValueOperations<String, Object> operations = getRedisTemplate().opsForValue();
+        List<String> keyList = new ArrayList<>(keys);
+        List<Object> values = new ArrayList<>(keyList.size());
+        for (int from = 0; from < keyList.size(); from += MULTI_KEY_BATCH_SIZE) {
+            List<String> chunk = keyList.subList(from, Math.min(from + MULTI_KEY_BATCH_SIZE, keyList.size()));
+            List<Object> chunkValues = operations.multiGet(chunk);
+            if (chunkValues == null) {
+                // 管道或事务中调用时没有返回值
+                return null;
+            }
+            values.addAll(chunkValues);
+        }
+        return values;
+    }
+
+    /**
+     * 批量写入缓存（MSET）
+     *
+     * @param entries 关键字与值
+     * @return 如果写入成功，则返回 true；否则返回 false
+     */
+    public boolean mSet(final Map<String, Object> entries) {
+        if (entries.isEmpty()) {
+            return true;
+        }
+        boolean result = false;
+        try {
+            getRedisTemplate().opsForValue().multiSet(entries);
+            result = true;
+        } catch (Exception e) {
+            log.error("批量写入缓存异常: {}", e.getMessage());
+        } finally {
+            // 超时等异常时写入可能已经生效，同样清除近端缓存
+            entries.keySet().forEach(RedisUtil::invalidateNearCache);
+        }
+        return result;
+    }
+
+    /**
+     * 批量写入缓存并设置相同的时效时间，MSET 不支持过期时间，改为管道中的 SET EX。
+     *      分批执行时后面的批次失败，前面批次的写入已经生效，因此无论成功与否都清除全部 key 的近端缓存
+     *
+     * @param entries    关键字与值
+     * @param expireTime 过期时间（秒）
+     * @return 如果写入成功，则返回 true；否则返回 false
+     */
+    public boolean mSet(final Map<String, Object> entries, Long expireTime) {
+        if (entries.isEmpty()) {
+            return true;
+        }
+        boolean result = false;
+        try {
+            pipelined(new ArrayList<>(entries.entrySet()),
+                    (operations, entry) -> operations.opsForValue().set(entry.getKey(), entry.getValue(), expireTime, TimeUnit.SECONDS));
+            result = true;
+        } catch (Exception e) {
+            log.error("批量写入缓存设置失效异常: {}", e.getMessage());
+        } finally {
+            entries.keySet().forEach(RedisUtil::invalidateNearCache);
+        }
+        return result;
+    }
+
     /**
      * 哈希 添加
      *
@@ -169,20 +367,71 @@ public class RedisUtil {
     public void hmSet(String key, Object hashKey, Object value) {
         HashOperations<String, Object, Object> hash = getRedisTemplate().opsForHash();
         hash.put(key, hashKey, value);
+        invalidateNearCache(key);
     }
 
     /**
-     * 哈希获取数据
+     * 哈希获取数据，key 启用了近端缓存时先读本地缓存；命中时返回的是共享对象，不能修改
      *
      * @param key 关键字
      * @param hashKey 哈希关键字
      * @return 值
      */
     public Object hmGet(String key, Object hashKey) {
+        RedisNearCache nearCache = nearCache(key);
+        if (nearCache != null) {
+            return nearCache.hashGet(key, hashKey, () -> getRedisTemplate().opsForHash().get(key, hashKey));
+        }
         HashOperations<String, Object, Object> hash = getRedisTemplate().opsForHash();
         return hash.get(key, hashKey);
     }
 
+    /**
+     * 哈希批量添加（HMSET）
+     *
+     * @param key     关键字
+     * @param entries 哈希关键字与值
+     */
+    public void hmSetAll(String key, Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        HashOperations<String, Object, Object> hash = getRedisTemplate().opsForHash();
+        hash.putAll(key, entries);
+        invalidateNearCache(key);
+    }
+
+    /**
+     * 哈希批量获取同一个 key 下的多个字段（HMGET），不经过近端缓存
+     *
+     * @param key      关键字
+     * @param hashKeys 哈希关键字集合
+     * @return 值，顺序与 hashKeys 的迭代顺序一致，不存在的字段对应 null
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> hmMultiGet(String key, Collection<?> hashKeys) {
+        if (hashKeys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        HashOperations<String, Object, Object> hash = getRedisTemplate().opsForHash();
+        // 只读取集合，按 Object 处理是安全的
+        return hash.multiGet(key, (Collection<Object>) hashKeys);
+    }
+
+    /**
+     * 哈希批量获取多个 key 下的同一个字段，通过管道执行 HGET，不经过近端缓存
+     *
+     * @param keys    关键字集合
+     * @param hashKey 哈希关键字
+     * @return 值，顺序与 keys 的迭代顺序一致，不存在的 key 或字段对应 null
+     */
+    public List<Object> hmGetBatch(Collection<String> keys, Object hashKey) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return pipelined(new ArrayList<>(keys), (operations, key) -> operations.opsForHash().get(key, hashKey));
+    }
+
     /**
      * 列表添加
      */
@@ -208,16 +457,14 @@ public class RedisUtil {
     }
 
     /**
-     * 删除集合下的所有值
+     * 删除集合下的所有值。
+     *      集合的最后一个成员被移除时 Redis 会删除该 key，因此等价于删除 key；
+     *      使用 UNLINK 一条命令完成，大集合的内存由 Redis 后台线程回收。
+     *      注意：与原先逐个 SREM 不同，UNLINK 不检查类型，key 不是集合时同样会被删除
      */
     public void removeSetAll(String key) {
-        SetOperations<String, Object> set = getRedisTemplate().opsForSet();
-        Set<Object> objectSet = set.members(key);
-        if (objectSet != null && !objectSet.isEmpty()) {
-            for (Object o : objectSet) {
-                set.remove(key, o);
-            }
-        }
+        getRedisTemplate().unlink(key);
+        invalidateNearCache(key);
     }
 
     /**
@@ -244,6 +491,43 @@ public class RedisUtil {
         zset.add(key, value, source);
     }
 
+    /**
+     * 有序集合批量添加，一条 ZADD 命令完成
+     *
+     * @param key    关键字
+     * @param scores 成员与分数
+     */
+    public void zAddAll(String key, Map<?, ? extends Number> scores) {
+        if (scores.isEmpty()) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>(scores.size() * 2);
+        for (Map.Entry<?, ? extends Number> entry : scores.entrySet()) {
+            tuples.add(new DefaultTypedTuple<>(entry.getKey(), entry.getValue().doubleValue()));
+        }
+        ZSetOperations<String, Object> zset = getRedisTemplate().opsForZSet();
+        zset.add(key, tuples);
+    }
+
+    /**
+     * 有序集合批量获取成员分数，通过管道执行 ZSCORE（ZMSCORE 需要 Redis 6.2）
+     *
+     * @param key     关键字
+     * @param members 成员集合
+     * @return 分数，顺序与 members 的迭代顺序一致，不存在的成员对应 null
+     */
+    public List<Double> zScoreBatch(String key, Collection<?> members) {
+        if (members.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> scores = pipelined(new ArrayList<>(members), (operations, member) -> operations.opsForZSet().score(key, member));
+        List<Double> result = new ArrayList<>(scores.size());
+        for (Object score : scores) {
+            result.add((Double) score);
+        }
+        return result;
+    }
+
     /**
      * 有序集合获取指定范围的数据
      */
@@ -267,4 +551,30 @@ public class RedisUtil {
         ZSetOperations<String, Object> zSet = getRedisTemplate().opsForZSet();
         return zSet.reverseRange(key, source, source1);
     }
+
+    /**
+     * 分批通过管道执行命令，每批最多 MULTI_KEY_BATCH_SIZE 条，每批一次往返
+     *
+     * @param items   参数集合
+     * @param command 对每个参数执行的命令
+     * @return 各命令的结果，顺序与 items 一致
+     */
+    private static <T> List<Object> pipelined(List<T> items, BiConsumer<RedisOperations<String, Object>, T> command) {
+        List<Object> results = new ArrayList<>(items.size());
+        for (int from = 0; from < items.size(); from += MULTI_KEY_BATCH_SIZE) {
+            List<T> chunk = items.subList(from, Math.min(from + MULTI_KEY_BATCH_SIZE, items.size()));
+            results.addAll(getRedisTemplate().executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> redisOperations = (RedisOperations<String, Object>) operations;
+                    for (T item : chunk) {
+                        command.accept(redisOperations, item);
+                    }
+                    return null;
+                }
+            }));
+        }
+        return results;
+    }
 }
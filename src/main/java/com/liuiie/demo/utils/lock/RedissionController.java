@@ -1,5 +1,6 @@
 package com.liuiie.demo.utils.lock;
 
+import com.liuiie.demo.utils.aop.DistributedLock;
 import lombok.extern.log4j.Log4j2;
 import org.redisson.api.RLock;
 import org.redisson.api.RReadWriteLock;
@@ -51,6 +52,17 @@ public class RedissionController {
         return key;
     }
 
+    /**
+     * 与 tyLock 相同，由 {@link DistributedLock} 完成加锁与解锁
+     */
+    @GetMapping("annotationLock")
+    @DistributedLock(name = "redission", key = "#key", waitTime = 30, leaseTime = 30)
+    public String annotationLock(String key) throws InterruptedException {
+        log.info("{} ", new SimpleDateFormat("HH:mm:ss").format(new Date()));
+        Thread.sleep(8000);
+        return key;
+    }
+
     @GetMapping("/getString")
     public String getString() throws InterruptedException {
         // 1.获取一把锁，只要锁的名字一样，就是同一把锁
@@ -7,11 +7,16 @@ import org.redisson.api.RLock;
 import org.redisson.api.RReadWriteLock;
 import org.redisson.api.RedissonClient;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 使用 Redisson 实现的分布式锁工具类。
  *      包含了普通锁、读锁和写锁的支持。
+ *      加解锁事件交给 {@link LockEventLogger} 抽样并定期汇总输出，不再每次操作打印一行日志。
  *
  * @author Liuiie
  * @since 2025/1/2 17:36
@@ -42,6 +47,13 @@ public class RedissonLockUtil {
         return RedissonClientHolder.INSTANCE;
     }
 
+    /**
+     * Redisson 锁按线程持有，以线程 ID 作为指标中的持有者标识
+     */
+    private static String currentOwner() {
+        return String.valueOf(Thread.currentThread().getId());
+    }
+
     /**
      * 尝试获取普通锁
      *
@@ -52,18 +64,18 @@ public class RedissonLockUtil {
      */
     public static boolean tryLock(String lockName, int leaseTime, int waitTime) {
         RLock lock = getRedissonClient().getLock(REDIS_LOCK_PREFIX + lockName);
+        long startNanos = System.nanoTime();
+        boolean isLocked = false;
         try {
-            boolean isLocked = lock.tryLock(waitTime, leaseTime, TimeUnit.SECONDS);
-            if (isLocked) {
-                log.info("线程: {} 成功获取普通锁: {}", ThreadUtil.getCurrentThreadName(), lockName);
-            } else {
-                log.warn("线程: {} 未能获取普通锁: {}", ThreadUtil.getCurrentThreadName(), lockName);
-            }
+            isLocked = lock.tryLock(waitTime, leaseTime, TimeUnit.SECONDS);
+            LockEventLogger.record(LockEventLogger.Kind.LOCK, isLocked ? LockEventLogger.Event.ACQUIRED : LockEventLogger.Event.FAILED, lockName);
             return isLocked;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("线程: {} 尝试获取普通锁[{}]时发生异常", ThreadUtil.getCurrentThreadName(), lockName, e);
             return false;
+        } finally {
+            LockMetrics.recordAcquire(LockMetrics.Backend.REDISSON, LockMetrics.LockType.LOCK, lockName, currentOwner(), startNanos, isLocked);
         }
     }
 
@@ -76,9 +88,122 @@ public class RedissonLockUtil {
         RLock lock = getRedissonClient().getLock(REDIS_LOCK_PREFIX + lockName);
         if (lock.isHeldByCurrentThread()) {
             lock.unlock();
-            log.info("线程: {} 成功释放普通锁: {}", ThreadUtil.getCurrentThreadName(), lockName);
+            LockMetrics.recordRelease(LockMetrics.Backend.REDISSON, LockMetrics.LockType.LOCK, lockName, currentOwner());
+            LockEventLogger.record(LockEventLogger.Kind.LOCK, LockEventLogger.Event.RELEASED, lockName);
         } else {
-            log.warn("线程: {} 没有持有普通锁: {}", ThreadUtil.getCurrentThreadName(), lockName);
+            LockEventLogger.record(LockEventLogger.Kind.LOCK, LockEventLogger.Event.NOT_HELD, lockName);
+        }
+    }
+
+    /**
+     * 尝试获取公平锁，按请求顺序获取
+     *
+     * @param lockName 锁名称
+     * @param leaseTime 锁的最大持有时间（单位：秒）
+     * @param waitTime  加锁超时时长（单位：秒）
+     * @return 是否成功获取公平锁
+     */
+    public static boolean tryFairLock(String lockName, int leaseTime, int waitTime) {
+        RLock fairLock = getRedissonClient().getFairLock(REDIS_LOCK_PREFIX + lockName);
+        long startNanos = System.nanoTime();
+        boolean isLocked = false;
+        try {
+            isLocked = fairLock.tryLock(waitTime, leaseTime, TimeUnit.SECONDS);
+            LockEventLogger.record(LockEventLogger.Kind.FAIR, isLocked ? LockEventLogger.Event.ACQUIRED : LockEventLogger.Event.FAILED, lockName);
+            return isLocked;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("线程: {} 尝试获取公平锁[{}]时发生异常", ThreadUtil.getCurrentThreadName(), lockName, e);
+            return false;
+        } finally {
+            LockMetrics.recordAcquire(LockMetrics.Backend.REDISSON, LockMetrics.LockType.LOCK, lockName, currentOwner(), startNanos, isLocked);
+        }
+    }
+
+    /**
+     * 释放公平锁
+     *
+     * @param lockName 锁名称
+     */
+    public static void unlockFair(String lockName) {
+        RLock fairLock = getRedissonClient().getFairLock(REDIS_LOCK_PREFIX + lockName);
+        if (fairLock.isHeldByCurrentThread()) {
+            fairLock.unlock();
+            LockMetrics.recordRelease(LockMetrics.Backend.REDISSON, LockMetrics.LockType.LOCK, lockName, currentOwner());
+            LockEventLogger.record(LockEventLogger.Kind.FAIR, LockEventLogger.Event.RELEASED, lockName);
+        } else {
+            LockEventLogger.record(LockEventLogger.Kind.FAIR, LockEventLogger.Event.NOT_HELD, lockName);
+        }
+    }
+
+    /**
+     * 一次获取多把普通锁（RedissonMultiLock），要么全部成功，要么一把都不持有。
+     *      锁名先去重排序，所有调用方按同一顺序加锁，避免相互等待造成死锁；
+     *      需要更少往返时可以使用 {@link RedisLockUtil#tryLockAll}，它在一次 Lua 脚本中完成全部加锁。
+     *      指标按每把锁分别记录，事件日志按一次联锁记录全部锁名
+     *
+     * @param lockNames 锁名称集合
+     * @param leaseTime 锁的最大持有时间（单位：秒）
+     * @param waitTime  加锁超时时长（单位：秒）
+     * @return 是否全部成功获取
+     */
+    public static boolean tryMultiLock(Collection<String> lockNames, int leaseTime, int waitTime) {
+        RedissonClient client = getRedissonClient();
+        TreeSet<String> sortedNames = new TreeSet<>(lockNames);
+        List<RLock> locks = new ArrayList<>(sortedNames.size());
+        for (String lockName : sortedNames) {
+            locks.add(client.getLock(REDIS_LOCK_PREFIX + lockName));
+        }
+        RLock multiLock = client.getMultiLock(locks.toArray(new RLock[0]));
+        long startNanos = System.nanoTime();
+        boolean isLocked = false;
+        try {
+            isLocked = multiLock.tryLock(waitTime, leaseTime, TimeUnit.SECONDS);
+            LockEventLogger.record(LockEventLogger.Kind.MULTI, isLocked ? LockEventLogger.Event.ACQUIRED : LockEventLogger.Event.FAILED,
+                    sortedNames.toString());
+            return isLocked;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("线程: {} 尝试获取联锁{}时发生异常", ThreadUtil.getCurrentThreadName(), sortedNames, e);
+            return false;
+        } finally {
+            String owner = currentOwner();
+            for (String lockName : sortedNames) {
+                LockMetrics.recordAcquire(LockMetrics.Backend.REDISSON, LockMetrics.LockType.LOCK, lockName, owner, startNanos, isLocked);
+            }
+        }
+    }
+
+    /**
+     * 释放 tryMultiLock 获取的多把锁，只释放当前线程持有的锁，各把锁的解锁请求并行发出。
+     *      有锁已过期或不属于当前线程时记录为未持有，不抛出 IllegalMonitorStateException
+     *
+     * @param lockNames 锁名称集合，与加锁时相同
+     */
+    public static void unlockMultiLock(Collection<String> lockNames) {
+        RedissonClient client = getRedissonClient();
+        TreeSet<String> sortedNames = new TreeSet<>(lockNames);
+        List<String> heldNames = new ArrayList<>(sortedNames.size());
+        List<RLock> heldLocks = new ArrayList<>(sortedNames.size());
+        for (String lockName : sortedNames) {
+            RLock lock = client.getLock(REDIS_LOCK_PREFIX + lockName);
+            if (lock.isHeldByCurrentThread()) {
+                heldNames.add(lockName);
+                heldLocks.add(lock);
+            }
+        }
+        if (!heldLocks.isEmpty()) {
+            client.getMultiLock(heldLocks.toArray(new RLock[0])).unlock();
+            String owner = currentOwner();
+            for (String lockName : heldNames) {
+                LockMetrics.recordRelease(LockMetrics.Backend.REDISSON, LockMetrics.LockType.LOCK, lockName, owner);
+            }
+        }
+        if (heldNames.size() == sortedNames.size()) {
+            LockEventLogger.record(LockEventLogger.Kind.MULTI, LockEventLogger.Event.RELEASED, sortedNames.toString());
+        } else {
+            LockEventLogger.record(LockEventLogger.Kind.MULTI, LockEventLogger.Event.NOT_HELD, sortedNames.toString());
+            log.warn("线程: {} 释放联锁{}时有锁已过期或不属于当前线程, 释放: {}", ThreadUtil.getCurrentThreadName(), sortedNames, heldNames);
         }
     }
 
@@ -93,18 +218,18 @@ public class RedissonLockUtil {
     public static boolean tryReadLock(String lockName, int leaseTime, int waitTime) {
         RReadWriteLock rwLock = getRedissonClient().getReadWriteLock(REDIS_LOCK_PREFIX + lockName);
         RLock readLock = rwLock.readLock();
+        long startNanos = System.nanoTime();
+        boolean isLocked = false;
         try {
-            boolean isLocked = readLock.tryLock(waitTime, leaseTime, TimeUnit.SECONDS);
-            if (isLocked) {
-                log.info("线程: {} 成功获取读锁: {}", ThreadUtil.getCurrentThreadName(), lockName);
-            } else {
-                log.warn("线程: {} 未能获取读锁: {}", ThreadUtil.getCurrentThreadName(), lockName);
-            }
+            isLocked = readLock.tryLock(waitTime, leaseTime, TimeUnit.SECONDS);
+            LockEventLogger.record(LockEventLogger.Kind.READ, isLocked ? LockEventLogger.Event.ACQUIRED : LockEventLogger.Event.FAILED, lockName);
             return isLocked;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("线程: {} 尝试获取读锁[{}]时发生异常", ThreadUtil.getCurrentThreadName(), lockName, e);
             return false;
+        } finally {
+            LockMetrics.recordAcquire(LockMetrics.Backend.REDISSON, LockMetrics.LockType.READ, lockName, currentOwner(), startNanos, isLocked);
         }
     }
 
@@ -118,9 +243,10 @@ public class RedissonLockUtil {
         RLock readLock = rwLock.readLock();
         if (readLock.isHeldByCurrentThread()) {
             readLock.unlock();
-            log.info("线程: {} 成功释放读锁: {}", ThreadUtil.getCurrentThreadName(), lockName);
+            LockMetrics.recordRelease(LockMetrics.Backend.REDISSON, LockMetrics.LockType.READ, lockName, currentOwner());
+            LockEventLogger.record(LockEventLogger.Kind.READ, LockEventLogger.Event.RELEASED, lockName);
         } else {
-            log.warn("线程:{} 没有持有读锁: {}", ThreadUtil.getCurrentThreadName(), lockName);
+            LockEventLogger.record(LockEventLogger.Kind.READ, LockEventLogger.Event.NOT_HELD, lockName);
         }
     }
 
@@ -135,18 +261,18 @@ public class RedissonLockUtil {
     public static boolean tryWriteLock(String lockName, int leaseTime, int waitTime) {
         RReadWriteLock rwLock = getRedissonClient().getReadWriteLock(REDIS_LOCK_PREFIX + lockName);
         RLock writeLock = rwLock.writeLock();
+        long startNanos = System.nanoTime();
+        boolean isLocked = false;
         try {
-            boolean isLocked = writeLock.tryLock(waitTime, leaseTime, TimeUnit.SECONDS);
-            if (isLocked) {
-                log.info("线程: {} 成功获取写锁: {}", ThreadUtil.getCurrentThreadName(), lockName);
-            } else {
-                log.warn("线程: {} 未能获取写锁: {}", ThreadUtil.getCurrentThreadName(), lockName);
-            }
+            isLocked = writeLock.tryLock(waitTime, leaseTime, TimeUnit.SECONDS);
+            LockEventLogger.record(LockEventLogger.Kind.WRITE, isLocked ? LockEventLogger.Event.ACQUIRED : LockEventLogger.Event.FAILED, lockName);
             return isLocked;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("线程: {} 尝试获取写锁[{}]时发生异常", ThreadUtil.getCurrentThreadName(), lockName, e);
             return false;
+        } finally {
+            LockMetrics.recordAcquire(LockMetrics.Backend.REDISSON, LockMetrics.LockType.WRITE, lockName, currentOwner(), startNanos, isLocked);
         }
     }
 
@@ -160,9 +286,10 @@ public class RedissonLockUtil {
         RLock writeLock = rwLock.writeLock();
         if (writeLock.isHeldByCurrentThread()) {
             writeLock.unlock();
-            log.info("线程: {} 成功释放写锁: {}", ThreadUtil.getCurrentThreadName(), lockName);
+            LockMetrics.recordRelease(LockMetrics.Backend.REDISSON, LockMetrics.LockType.WRITE, lockName, currentOwner());
+            LockEventLogger.record(LockEventLogger.Kind.WRITE, LockEventLogger.Event.RELEASED, lockName);
         } else {
-            log.warn("线程: {} 没有持有写锁: {}", ThreadUtil.getCurrentThreadName(), lockName);
+            LockEventLogger.record(LockEventLogger.Kind.WRITE, LockEventLogger.Event.NOT_HELD, lockName);
         }
     }
 
@@ -0,0 +1,18 @@
+package com.liuiie.demo.utils.lock;
+
+/**
+ * 按模式批量删除的进度监听
+ *
+ * @author Liuiie
+ * @since 2026/10/18 21:30
+ */
+@FunctionalInterface
+public interface ScanProgressListener {
+    /**
+     * 每删除一批 key 后回调，在执行删除的线程中调用
+     *
+     * @param scanned 累计扫描到的 key 数量（SCAN 可能重复返回同一个 key）
+     * @param deleted 累计实际删除的 key 数量
+     */
+    void onProgress(long scanned, long deleted);
+}
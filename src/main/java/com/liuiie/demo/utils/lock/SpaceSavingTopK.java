@@ -0,0 +1,181 @@
+package com.liuiie.demo.utils.lock;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Space-Saving 算法的 Top-K 热点统计
+ *      最多跟踪 capacity 个键，表满时新键替换计数最小的键并继承其计数，
+ *      内存占用与键的基数无关，计数是真实次数的上界，误差不超过被替换时的最小计数。
+ *      记录时先累加到线程本地缓冲，攒够 FLUSH_THRESHOLD 次才加锁合并到共享表，读取时合并全部缓冲，
+ *      热点键竞争时不会所有线程都串行在同一把锁和 O(capacity) 的最小值查找上
+ *
+ * @author Liuiie
+ * @since 2026/10/18 19:40
+ */
+final class SpaceSavingTopK {
+    /**
+     * 线程本地缓冲累积到该次数后合并到共享表
+     */
+    private static final int FLUSH_THRESHOLD = 64;
+
+    /**
+     * 每合并该次数后顺带合并并清理已退出线程的缓冲
+     */
+    private static final int PRUNE_INTERVAL = 64;
+
+    private final int capacity;
+
+    private final Map<String, long[]> counters;
+
+    /**
+     * 所有线程的本地缓冲，读取时逐个合并
+     */
+    private final Set<LocalBuffer> buffers = ConcurrentHashMap.newKeySet();
+
+    private final ThreadLocal<LocalBuffer> localBuffer = ThreadLocal.withInitial(this::register);
+
+    private int flushes;
+
+    SpaceSavingTopK(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * 记录一次出现
+     *
+     * @param key 键
+     */
+    void offer(String key) {
+        LocalBuffer buffer = localBuffer.get();
+        boolean full;
+        synchronized (buffer) {
+            long[] pending = buffer.pending.get(key);
+            if (pending != null) {
+                pending[0]++;
+            } else {
+                buffer.pending.put(key, new long[]{1L});
+            }
+            full = ++buffer.size >= FLUSH_THRESHOLD;
+        }
+        if (full) {
+            flush(buffer);
+        }
+    }
+
+    /**
+     * 按计数从大到小返回前 n 个键
+     *
+     * @param n 数量
+     * @return 键与估计次数
+     */
+    synchronized List<Map.Entry<String, Long>> top(int n) {
+        drainBuffers();
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counters.size());
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()[0]));
+        }
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return entries.size() > n ? new ArrayList<>(entries.subList(0, n)) : entries;
+    }
+
+    synchronized void clear() {
+        for (LocalBuffer buffer : buffers) {
+            synchronized (buffer) {
+                buffer.pending.clear();
+                buffer.size = 0;
+            }
+        }
+        counters.clear();
+    }
+
+    private LocalBuffer register() {
+        LocalBuffer buffer = new LocalBuffer(Thread.currentThread());
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    private synchronized void flush(LocalBuffer buffer) {
+        drain(buffer);
+        if (++flushes % PRUNE_INTERVAL == 0) {
+            drainBuffers();
+        }
+    }
+
+    /**
+     * 合并所有线程的缓冲，所属线程已退出的缓冲合并后移除
+     */
+    private void drainBuffers() {
+        Iterator<LocalBuffer> iterator = buffers.iterator();
+        while (iterator.hasNext()) {
+            LocalBuffer buffer = iterator.next();
+            drain(buffer);
+            Thread owner = buffer.owner.get();
+            if (owner == null || !owner.isAlive()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void drain(LocalBuffer buffer) {
+        synchronized (buffer) {
+            for (Map.Entry<String, long[]> entry : buffer.pending.entrySet()) {
+                add(entry.getKey(), entry.getValue()[0]);
+            }
+            buffer.pending.clear();
+            buffer.size = 0;
+        }
+    }
+
+    /**
+     * 加权的 Space-Saving 更新，调用方持有 this 的锁
+     */
+    private void add(String key, long count) {
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0] += count;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new long[]{count});
+            return;
+        }
+        String minKey = null;
+        long[] minCounter = null;
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            if (minCounter == null || entry.getValue()[0] < minCounter[0]) {
+                minKey = entry.getKey();
+                minCounter = entry.getValue();
+            }
+        }
+        counters.remove(minKey);
+        minCounter[0] += count;
+        counters.put(key, minCounter);
+    }
+
+    /**
+     * 单个线程尚未合并的计数，由所属线程写入，合并时由持有 this 锁的线程清空
+     */
+    private static final class LocalBuffer {
+        private final WeakReference<Thread> owner;
+
+        private final Map<String, long[]> pending = new HashMap<>();
+
+        private int size;
+
+        private LocalBuffer(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.liuiie.demo.utils.lock;
+
+import com.liuiie.demo.utils.thread.ThreadUtil;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 本地锁 + Redis 分布式锁的两级锁工具类。
+ *      同一个 JVM 内竞争同一把锁的线程先在本地公平锁上排队，只有拿到本地锁的线程才去 Redis 加锁，
+ *      N 个本地竞争者因此只对应 1 个远程竞争者；重入只在本地计数，不再访问 Redis。
+ *      Redis 层复用 {@link RedisLockUtil} 的加锁、续期与解锁通知。
+ *
+ * @author Liuiie
+ * @since 2026/10/18 19:10
+ */
+@Log4j2
+public class TwoLevelLockUtil {
+
+    /**
+     * 每把锁在本 JVM 内的状态，没有线程持有或等待时移除
+     */
+    private static final Map<String, LocalLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * 尝试获取两级锁，同一线程可重入。
+     *
+     * @param key        锁的唯一标识符
+     * @param expireTime Redis 锁的有效期时间
+     * @param timeUnit   锁有效期的时间单位
+     * @param timeout    本地排队与 Redis 等待合计的最大时间（毫秒）
+     * @return 如果成功获取锁，则返回 true；否则返回 false
+     */
+    public static boolean tryLock(String key, long expireTime, TimeUnit timeUnit, long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        LocalLock localLock = retain(key);
+        boolean locallyLocked = false;
+        try {
+            locallyLocked = localLock.lock.tryLock(timeout, TimeUnit.MILLISECONDS);
+            if (!locallyLocked) {
+                return false;
+            }
+            if (localLock.lock.getHoldCount() > 1) {
+                // 重入，Redis 锁已由当前线程持有，最外层加锁时已登记过
+                release(key, localLock);
+                return true;
+            }
+            String requestId = UUID.randomUUID().toString();
+            long remaining = Math.max(0L, deadline - System.currentTimeMillis());
+            if (RedisLockUtil.tryLockWithNotify(key, requestId, expireTime, timeUnit, remaining)) {
+                localLock.requestId = requestId;
+                return true;
+            }
+            localLock.lock.unlock();
+            locallyLocked = false;
+            return false;
+        } catch (InterruptedException e) {
+            Thread currentThread = Thread.currentThread();
+            String currentThreadName = currentThread.getName();
+            currentThread.interrupt();
+            log.warn("线程: {} 等待本地锁[{}]过程中线程被中断", currentThreadName, key, e);
+            return false;
+        } finally {
+            if (!locallyLocked) {
+                release(key, localLock);
+            }
+        }
+    }
+
+    /**
+     * 释放两级锁，最外层释放时才释放 Redis 锁。
+     *
+     * @param key 锁的唯一标识符
+     * @return 如果当前线程持有该锁并成功释放，则返回 true；否则返回 false
+     */
+    public static boolean unlock(String key) {
+        LocalLock localLock = LOCAL_LOCKS.get(key);
+        if (localLock == null || !localLock.lock.isHeldByCurrentThread()) {
+            log.warn("线程: {} 尝试释放未持有的锁[{}]", ThreadUtil.getCurrentThreadName(), key);
+            return false;
+        }
+        if (localLock.lock.getHoldCount() > 1) {
+            localLock.lock.unlock();
+            return true;
+        }
+        try {
+            String requestId = localLock.requestId;
+            localLock.requestId = null;
+            return RedisLockUtil.unlock(key, requestId);
+        } finally {
+            localLock.lock.unlock();
+            release(key, localLock);
+        }
+    }
+
+    /**
+     * 登记一个持有或等待该锁的线程
+     */
+    private static LocalLock retain(String key) {
+        return LOCAL_LOCKS.compute(key, (k, localLock) -> {
+            if (localLock == null) {
+                localLock = new LocalLock();
+            }
+            localLock.references++;
+            return localLock;
+        });
+    }
+
+    /**
+     * 注销一个持有或等待该锁的线程，最后一个线程离开时移除
+     */
+    private static void release(String key, LocalLock localLock) {
+        LOCAL_LOCKS.computeIfPresent(key, (k, current) -> {
+            if (current != localLock || --current.references > 0) {
+                return current;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 单把锁的本地状态
+     */
+    private static class LocalLock {
+        /**
+         * 公平的本地锁，按到达顺序把线程放行到 Redis
+         */
+        private final ReentrantLock lock = new ReentrantLock(true);
+
+        /**
+         * 当前持有 Redis 锁时使用的请求 ID，只由本地锁的持有线程读写
+         */
+        private String requestId;
+
+        /**
+         * 持有或等待该锁的线程数，只在 LOCAL_LOCKS.compute 中修改
+         */
+        private int references;
+    }
+}
@@ -0,0 +1,106 @@
+package com.liuiie.demo.utils.aop;
+
+import com.liuiie.demo.utils.lock.DistributedLockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.EvaluationException;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 分布式锁切面的锁名计算与请求 ID 复用
+ *
+ * @author Liuiie
+ * @since 2026/10/18 23:35
+ */
+public class DistributedLockAspectTest {
+
+    public static class Order {
+        private final long id;
+
+        public Order(long id) {
+            this.id = id;
+        }
+
+        public long getId() {
+            return id;
+        }
+    }
+
+    static class OrderService {
+        @DistributedLock(name = "order", key = "#order.id")
+        void pay(Order order) {
+        }
+
+        @DistributedLock(key = "#p0 + ':' + #p1")
+        void transfer(String from, String to) {
+        }
+
+        @DistributedLock(name = "global")
+        void rebuild() {
+        }
+
+        @DistributedLock(name = "user", key = "#userId")
+        void lockUser(String userId) {
+        }
+
+        @DistributedLock(name = "unsafe", key = "T(java.lang.System).getProperty('user.home')")
+        void unsafe() {
+        }
+    }
+
+    @Test
+    void testKeyFromParameterProperty() {
+        assertEquals("order:42", render("pay", new Order(42)));
+        assertEquals("order:43", render("pay", new Order(43)));
+    }
+
+    @Test
+    void testIndexAliasAndDefaultPrefix() {
+        assertEquals("OrderService:transfer:a:b", render("transfer", "a", "b"));
+    }
+
+    @Test
+    void testNoKeyUsesPrefix() {
+        assertEquals("global", render("rebuild"));
+    }
+
+    @Test
+    void testNullKeyRejected() {
+        assertThrows(DistributedLockException.class, () -> render("lockUser", (Object) null));
+    }
+
+    @Test
+    void testTypeReferenceRejected() {
+        assertThrows(EvaluationException.class, () -> render("unsafe"));
+    }
+
+    @Test
+    void testNestedLockReusesRequestId() {
+        String outer = DistributedLockAspect.retainRequestId("order:42");
+        assertEquals(outer, DistributedLockAspect.retainRequestId("order:42"));
+        assertNotEquals(outer, DistributedLockAspect.retainRequestId("order:43"));
+        DistributedLockAspect.releaseRequestId("order:43");
+        DistributedLockAspect.releaseRequestId("order:42");
+        assertEquals(outer, DistributedLockAspect.retainRequestId("order:42"));
+        DistributedLockAspect.releaseRequestId("order:42");
+        DistributedLockAspect.releaseRequestId("order:42");
+        // 最外层释放后重新生成
+        String next = DistributedLockAspect.retainRequestId("order:42");
+        assertNotEquals(outer, next);
+        DistributedLockAspect.releaseRequestId("order:42");
+    }
+
+    private static String render(String methodName, Object... args) {
+        for (Method method : OrderService.class.getDeclaredMethods()) {
+            if (method.getName().equals(methodName)) {
+                DistributedLock distributedLock = method.getAnnotation(DistributedLock.class);
+                return new DistributedLockAspect.LockNameTemplate(method, distributedLock).render(args);
+            }
+        }
+        throw new IllegalArgumentException(methodName);
+    }
+}
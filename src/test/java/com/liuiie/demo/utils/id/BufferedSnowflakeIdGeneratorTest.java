@@ -0,0 +1,113 @@
+package com.liuiie.demo.utils.id;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 带线程本地缓冲的雪花算法id生成器
+ *
+ * @author Liuiie
+ * @since 2026/10/18 11:40
+ */
+public class BufferedSnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 8;
+
+    private static final int PER_THREAD = 50000;
+
+    @Test
+    void testMonotonicPerThreadAndUnique() throws InterruptedException {
+        SnowflakeIdUtil idUtil = SnowflakeIdUtil.getInstance();
+        BufferedSnowflakeIdGenerator generator = new BufferedSnowflakeIdGenerator(idUtil, 1024, 50);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        AtomicBoolean ordered = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            new Thread(() -> {
+                long last = 0;
+                for (int i = 0; i < PER_THREAD; i++) {
+                    long id = generator.nextId();
+                    if (id <= last) {
+                        ordered.set(false);
+                    }
+                    last = id;
+                    ids.add(id);
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        generator.shutdown();
+        assertTrue(ordered.get());
+        assertEquals(THREADS * PER_THREAD, ids.size());
+        assertTrue(generator.getHitCount() > 0);
+        assertEquals(THREADS * PER_THREAD, generator.getHitCount() + generator.getMissCount());
+    }
+
+    @Test
+    void testRetiresExitedThreadsUnderConstantRefill() throws InterruptedException {
+        BufferedSnowflakeIdGenerator generator =
+                new BufferedSnowflakeIdGenerator(SnowflakeIdUtil.getInstance(), 16, 50);
+        Set<?> rings = (Set<?>) ReflectionTestUtils.getField(generator, "rings");
+        // 常驻线程不停取号，补充队列始终有请求，后台线程的 poll 不会超时
+        AtomicBoolean busy = new AtomicBoolean(true);
+        Thread[] hotThreads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            hotThreads[t] = new Thread(() -> {
+                while (busy.get()) {
+                    generator.nextId();
+                }
+            });
+            hotThreads[t].start();
+        }
+        // 大量短生命周期线程取号后退出，留下的缓冲要由巡检回收
+        for (int round = 0; round < 20; round++) {
+            Thread[] shortLived = new Thread[50];
+            for (int i = 0; i < shortLived.length; i++) {
+                shortLived[i] = new Thread(generator::nextId);
+                shortLived[i].start();
+            }
+            for (Thread thread : shortLived) {
+                thread.join();
+            }
+        }
+        long deadline = System.currentTimeMillis() + 2000;
+        while (rings.size() > THREADS) {
+            assertTrue(System.currentTimeMillis() < deadline, "已退出线程的缓冲未被回收: " + rings.size());
+            Thread.sleep(10);
+        }
+        busy.set(false);
+        for (Thread thread : hotThreads) {
+            thread.join();
+        }
+        generator.shutdown();
+        assertTrue(generator.getHitCount() + generator.getMissCount() >= 1000);
+    }
+
+    @Test
+    void testFallbackAfterShutdown() {
+        BufferedSnowflakeIdGenerator generator =
+                new BufferedSnowflakeIdGenerator(SnowflakeIdUtil.getInstance(), 16, 50);
+        generator.shutdown();
+        // 前 16 个来自缓冲，之后回落到直接生成，跨越边界仍然唯一且递增
+        Set<Long> ids = new HashSet<>();
+        long last = 0;
+        for (int i = 0; i < 100; i++) {
+            long id = generator.nextId();
+            assertTrue(id > last);
+            assertTrue(ids.add(id));
+            last = id;
+        }
+        assertTrue(generator.getMissCount() > 0);
+        assertEquals(100, generator.getHitCount() + generator.getMissCount());
+    }
+}
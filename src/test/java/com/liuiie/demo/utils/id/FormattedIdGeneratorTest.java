@@ -0,0 +1,81 @@
+package com.liuiie.demo.utils.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 格式化ID生成器
+ *
+ * @author Liuiie
+ * @since 2026/10/18 18:35
+ */
+public class FormattedIdGeneratorTest {
+
+    private static final ZoneId ZONE = ZoneOffset.ofHours(8);
+
+    /**
+     * 每个 (业务类型, 日期) 从 1 开始递增的序列号来源
+     */
+    private static class CounterDailySequence implements DailySequence {
+        private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+        @Override
+        public long next(String bizType, LocalDate date) {
+            return counters.computeIfAbsent(bizType + date, key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    @Test
+    void testFormatsPrefixDateAndPaddedSequence() {
+        AtomicLong now = new AtomicLong(millis(LocalDateTime.of(2026, 10, 18, 12, 0)));
+        FormattedIdGenerator generator = new FormattedIdGenerator(new CounterDailySequence(), now::get, ZONE);
+        generator.register("order", "ORD", 6);
+        generator.register("refund", "RF", new CounterDailySequence(), 4);
+
+        assertEquals("ORD20261018000001", generator.nextId("order"));
+        assertEquals("ORD20261018000002", generator.nextId("order"));
+        assertEquals("RF202610180001", generator.nextId("refund"));
+        assertEquals("xORD20261018000003", generator.nextId("order", new StringBuilder("x")).toString());
+    }
+
+    @Test
+    void testRestartsSequenceOnDayRollover() {
+        AtomicLong now = new AtomicLong(millis(LocalDateTime.of(2026, 10, 18, 23, 59, 59)));
+        FormattedIdGenerator generator = new FormattedIdGenerator(new CounterDailySequence(), now::get, ZONE);
+        generator.register("order", "ORD", 3);
+
+        assertEquals("ORD20261018001", generator.nextId("order"));
+        assertEquals("ORD20261018002", generator.nextId("order"));
+        now.set(millis(LocalDateTime.of(2026, 10, 19, 0, 0)));
+        assertEquals("ORD20261019001", generator.nextId("order"));
+        now.set(millis(LocalDateTime.of(2026, 12, 31, 23, 0)));
+        assertEquals("ORD20261231001", generator.nextId("order"));
+    }
+
+    @Test
+    void testRejectsSequenceWiderThanLength() {
+        FormattedIdGenerator generator = new FormattedIdGenerator((bizType, date) -> 10000L, () -> 0L, ZoneOffset.UTC);
+        generator.register("order", "ORD", 4);
+        generator.register("refund", "RF", (bizType, date) -> 9999L, 4);
+
+        // 定长单号不能被更宽的序列号撑长
+        assertThrows(IllegalStateException.class, () -> generator.nextId("order"));
+        assertEquals("RF197001019999", generator.nextId("refund"));
+        assertThrows(IllegalArgumentException.class, () -> generator.nextId("unknown"));
+        assertThrows(IllegalArgumentException.class, () -> generator.register("order", "ORD", 19));
+    }
+}
@@ -0,0 +1,58 @@
+package com.liuiie.demo.utils.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 基于内存的 workerId 租约管理
+ *
+ * @author Liuiie
+ * @since 2026/10/18 14:30
+ */
+public class LocalWorkerIdLeaseManagerTest {
+
+    @Test
+    void testDistinctWorkerIds() {
+        ConcurrentMap<Integer, String> slots = new ConcurrentHashMap<>();
+        Set<Integer> workerIds = new HashSet<>();
+        for (int i = 0; i < WorkerIdLeaseManager.MAX_WORKER_ID; i++) {
+            assertTrue(workerIds.add(new LocalWorkerIdLeaseManager(slots).acquire()));
+        }
+        assertThrows(IllegalStateException.class, () -> new LocalWorkerIdLeaseManager(slots).acquire());
+    }
+
+    @Test
+    void testAcquireStaysWithinLayoutWorkerBits() {
+        ConcurrentMap<Integer, String> slots = new ConcurrentHashMap<>();
+        SnowflakeLayout layout = new SnowflakeLayout(41, 0, 2, 20, SnowflakeLayout.DEFAULT_EPOCH);
+        Set<Integer> workerIds = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            SnowflakeIdUtil idUtil = SnowflakeIdUtil.create(layout, 0, 0);
+            idUtil.useWorkerIdLease(new LocalWorkerIdLeaseManager(slots));
+            assertTrue(workerIds.add(idUtil.getWorkerId()));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(0, 1, 2, 3)), workerIds);
+        // 2 位机器ID只有 4 个取值，不能分配到布局之外的 workerId
+        assertThrows(IllegalStateException.class,
+                () -> SnowflakeIdUtil.create(layout, 0, 0).useWorkerIdLease(new LocalWorkerIdLeaseManager(slots)));
+    }
+
+    @Test
+    void testReleaseFreesSlot() {
+        ConcurrentMap<Integer, String> slots = new ConcurrentHashMap<>();
+        LocalWorkerIdLeaseManager first = new LocalWorkerIdLeaseManager(slots);
+        int workerId = first.acquire();
+        first.release();
+        assertEquals(-1, first.getWorkerId());
+        assertEquals(workerId, new LocalWorkerIdLeaseManager(slots).acquire());
+    }
+}
@@ -0,0 +1,72 @@
+package com.liuiie.demo.utils.id;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 基于 Redis 的按天序列号
+ *
+ * @author Liuiie
+ * @since 2026/10/18 23:30
+ */
+public class RedisDailySequenceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+
+    @Test
+    void testKeysAreScopedByBizTypeAndDay() {
+        FakeRedisTemplate redisTemplate = new FakeRedisTemplate();
+        RedisDailySequence sequence = new RedisDailySequence(redisTemplate);
+
+        assertEquals(1L, sequence.next("order", DAY));
+        assertEquals(2L, sequence.next("order", DAY));
+        assertEquals(1L, sequence.next("refund", DAY));
+        assertEquals(1L, sequence.next("order", DAY.plusDays(1)));
+        assertEquals(RedisDailySequence.KEY_PREFIX + "order_20261019", redisTemplate.keys.get(3));
+        assertEquals(4, redisTemplate.keys.size());
+    }
+
+    @Test
+    void testStepReservesRangePerRoundTrip() {
+        FakeRedisTemplate redisTemplate = new FakeRedisTemplate();
+        RedisDailySequence first = new RedisDailySequence(redisTemplate, 10);
+        RedisDailySequence second = new RedisDailySequence(redisTemplate, 10);
+
+        for (long i = 1; i <= 10; i++) {
+            assertEquals(i, first.next("order", DAY));
+        }
+        assertEquals(1, redisTemplate.keys.size());
+        // 另一个实例从下一段开始，不会与第一段重复
+        assertEquals(11L, second.next("order", DAY));
+        assertEquals(21L, first.next("order", DAY));
+        // 跨天时放弃前一天剩余的号，新的一天从 1 开始
+        assertEquals(1L, first.next("order", DAY.plusDays(1)));
+        assertEquals(4, redisTemplate.keys.size());
+    }
+
+    /**
+     * 按 key 模拟 INCRBY，记录每次往返访问的 key
+     */
+    private static class FakeRedisTemplate extends StringRedisTemplate {
+        private final Map<String, Long> values = new ConcurrentHashMap<>();
+
+        private final List<String> keys = new ArrayList<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized <T> T execute(RedisScript<T> script, List<String> scriptKeys, Object... args) {
+            String key = scriptKeys.get(0);
+            keys.add(key);
+            return (T) values.merge(key, Long.parseLong((String) args[0]), Long::sum);
+        }
+    }
+}
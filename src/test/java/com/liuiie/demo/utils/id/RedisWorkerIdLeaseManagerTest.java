@@ -0,0 +1,132 @@
+package com.liuiie.demo.utils.id;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 基于 Redis 的 workerId 租约管理，续期失败时的隔离与恢复
+ *
+ * @author Liuiie
+ * @since 2026/10/18 22:40
+ */
+public class RedisWorkerIdLeaseManagerTest {
+
+    @Test
+    void testRenewFailureFencesGeneratorAfterTtl() throws InterruptedException {
+        FakeRedisTemplate redisTemplate = new FakeRedisTemplate();
+        redisTemplate.claimResult = 5L;
+        RedisWorkerIdLeaseManager leaseManager = new RedisWorkerIdLeaseManager(redisTemplate, 60, TimeUnit.MILLISECONDS);
+        SnowflakeIdUtil idUtil = new SnowflakeIdUtil(0);
+        idUtil.useWorkerIdLease(leaseManager);
+        assertEquals(5, idUtil.getWorkerId());
+        idUtil.nextId();
+
+        // 续期与重新申请都失败，超过有效期后隔离
+        redisTemplate.failing = true;
+        waitUntil(() -> idUtil.getWorkerId() == -1);
+        assertEquals(-1, leaseManager.getWorkerId());
+        assertThrows(IllegalStateException.class, idUtil::nextId);
+        assertThrows(IllegalStateException.class, () -> idUtil.nextIds(10));
+
+        // Redis 恢复后由心跳重新申请，生成器自动恢复
+        redisTemplate.claimResult = 7L;
+        redisTemplate.failing = false;
+        waitUntil(() -> idUtil.getWorkerId() == 7);
+        assertEquals(7, leaseManager.getWorkerId());
+        assertEquals(7L, idUtil.decode(idUtil.nextId(), new SnowflakeId()).getWorkerId());
+        leaseManager.release();
+    }
+
+    @Test
+    void testLostLeaseFencesImmediatelyWhenNoSlotIsFree() throws InterruptedException {
+        FakeRedisTemplate redisTemplate = new FakeRedisTemplate();
+        redisTemplate.claimResult = 5L;
+        RedisWorkerIdLeaseManager leaseManager = new RedisWorkerIdLeaseManager(redisTemplate, 60, TimeUnit.MILLISECONDS);
+        Queue<Integer> notified = new ConcurrentLinkedQueue<>();
+        leaseManager.acquire(notified::add);
+
+        // key 已被其他实例占用，且没有空闲槽位
+        redisTemplate.renewResult = 0L;
+        redisTemplate.claimResult = -1L;
+        waitUntil(() -> !notified.isEmpty());
+        assertEquals(-1, (int) notified.peek());
+        assertEquals(-1, leaseManager.getWorkerId());
+        leaseManager.release();
+    }
+
+    @Test
+    void testClaimUsesLayoutWorkerIdCount() {
+        FakeRedisTemplate redisTemplate = new FakeRedisTemplate();
+        redisTemplate.claimResult = 3L;
+        RedisWorkerIdLeaseManager leaseManager = new RedisWorkerIdLeaseManager(redisTemplate, 60, TimeUnit.MILLISECONDS);
+        SnowflakeLayout layout = new SnowflakeLayout(41, 0, 3, 19, SnowflakeLayout.DEFAULT_EPOCH);
+        SnowflakeIdUtil idUtil = SnowflakeIdUtil.create(layout, 0, 0);
+        idUtil.useWorkerIdLease(leaseManager);
+
+        assertEquals(3, idUtil.getWorkerId());
+        // 脚本只在 3 位机器ID的 8 个槽位中查找，起点也落在这个范围内
+        assertEquals("8", redisTemplate.claimArgs[3]);
+        assertTrue(Integer.parseInt((String) redisTemplate.claimArgs[2]) < 8);
+        leaseManager.release();
+    }
+
+    @Test
+    void testAcquireAfterReleaseRejected() {
+        FakeRedisTemplate redisTemplate = new FakeRedisTemplate();
+        redisTemplate.claimResult = 5L;
+        RedisWorkerIdLeaseManager leaseManager = new RedisWorkerIdLeaseManager(redisTemplate, 60, TimeUnit.MILLISECONDS);
+        leaseManager.acquire();
+        leaseManager.release();
+        assertEquals(-1, leaseManager.getWorkerId());
+        assertThrows(IllegalStateException.class, leaseManager::acquire);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 按脚本内容模拟申请、续期与释放的结果
+     */
+    private static class FakeRedisTemplate extends StringRedisTemplate {
+        private volatile boolean failing;
+
+        private volatile long claimResult;
+
+        private volatile long renewResult = 1L;
+
+        private volatile Object[] claimArgs;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            if (failing) {
+                throw new IllegalStateException("模拟 Redis 不可用");
+            }
+            String text = script.getScriptAsString();
+            if (text.contains("'NX'")) {
+                claimArgs = args;
+                return (T) Long.valueOf(claimResult);
+            }
+            if (text.contains("PEXPIRE")) {
+                return (T) Long.valueOf(renewResult);
+            }
+            return (T) Long.valueOf(1L);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.liuiie.demo.utils.id;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 号段模式ID分配器
+ *
+ * @author Liuiie
+ * @since 2026/10/18 17:30
+ */
+public class SegmentIdAllocatorTest {
+
+    private static final int STEP = 100;
+
+    /**
+     * 用内存计数代替数据库中的 max_id
+     */
+    private static class InMemorySegmentIdAllocator extends SegmentIdAllocator {
+        private final AtomicLong maxId = new AtomicLong();
+
+        private final AtomicInteger allocations = new AtomicInteger();
+
+        InMemorySegmentIdAllocator() {
+            super((DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                    new Class[]{DataSource.class}, (proxy, method, args) -> null), null, DEFAULT_TABLE, STEP);
+        }
+
+        @Override
+        long allocate(String bizTag) {
+            allocations.incrementAndGet();
+            return maxId.addAndGet(STEP);
+        }
+    }
+
+    @Test
+    void testDenseSequentialIds() {
+        InMemorySegmentIdAllocator allocator = new InMemorySegmentIdAllocator();
+        IdGenerator generator = allocator.get("order");
+        for (long expected = 1; expected <= 1000; expected++) {
+            assertEquals(expected, generator.nextId());
+        }
+        long[] block = generator.nextIds(250);
+        for (int i = 0; i < block.length; i++) {
+            assertEquals(1001L + i, block[i]);
+        }
+        // 10 个号段用于单个取号，3 个号段用于批量，预取最多多申请一个
+        assertTrue(allocator.allocations.get() <= 14);
+        allocator.shutdown();
+    }
+
+    @Test
+    void testStaleSegmentDoesNotPrefetchAfterSwitch() {
+        InMemorySegmentIdAllocator allocator = new InMemorySegmentIdAllocator();
+        IdGenerator generator = allocator.get("order");
+        assertEquals(1L, generator.nextId());
+        Object stale = ReflectionTestUtils.getField(generator, "current");
+        // 用完第一个号段并切换到预取好的第二个号段
+        for (long expected = 2; expected <= STEP + 1; expected++) {
+            assertEquals(expected, generator.nextId());
+        }
+        assertEquals(2, allocator.allocations.get());
+        assertNull(ReflectionTestUtils.getField(generator, "next"));
+
+        // 切换后才按旧号段的余量触发预取，新号段余量充足，不能再次申请
+        ReflectionTestUtils.invokeMethod(generator, "prefetch", stale);
+        assertNull(ReflectionTestUtils.getField(generator, "next"));
+        assertEquals(2, allocator.allocations.get());
+        allocator.shutdown();
+    }
+
+    @Test
+    void testConcurrentUnique() throws InterruptedException {
+        InMemorySegmentIdAllocator allocator = new InMemorySegmentIdAllocator();
+        IdGenerator generator = allocator.get("order");
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 5000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            boolean batch = (t & 1) == 0;
+            new Thread(() -> {
+                if (batch) {
+                    long[] buffer = new long[37];
+                    for (int i = 0; i < perThread / buffer.length; i++) {
+                        generator.nextIdBlock(buffer);
+                        for (long id : buffer) {
+                            ids.add(id);
+                        }
+                    }
+                    long[] rest = generator.nextIds(perThread % buffer.length);
+                    for (long id : rest) {
+                        ids.add(id);
+                    }
+                } else {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        assertEquals(threads * perThread, ids.size());
+        allocator.shutdown();
+    }
+}
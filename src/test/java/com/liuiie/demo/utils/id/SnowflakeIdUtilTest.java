@@ -0,0 +1,223 @@
+package com.liuiie.demo.utils.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 雪花算法id工具
+ *
+ * @author Liuiie
+ * @since 2026/10/18 10:30
+ */
+public class SnowflakeIdUtilTest {
+
+    private static final int THREADS = 16;
+
+    private static final int PER_THREAD = 20000;
+
+    @Test
+    void testMonotonicInSingleThread() {
+        SnowflakeIdUtil idUtil = SnowflakeIdUtil.getInstance();
+        long last = idUtil.nextIdLockFree();
+        for (int i = 0; i < 100000; i++) {
+            long id = (i & 1) == 0 ? idUtil.nextIdSynchronized() : idUtil.nextIdLockFree();
+            assertTrue(id > last);
+            last = id;
+        }
+    }
+
+    @Test
+    void testUniqueWithMixedModes() throws InterruptedException {
+        SnowflakeIdUtil idUtil = SnowflakeIdUtil.getInstance();
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            boolean lockFree = (t & 1) == 0;
+            new Thread(() -> {
+                for (int i = 0; i < PER_THREAD; i++) {
+                    ids.add(lockFree ? idUtil.nextIdLockFree() : idUtil.nextIdSynchronized());
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        assertEquals(THREADS * PER_THREAD, ids.size());
+    }
+
+    @Test
+    void testNextIdBlock() {
+        SnowflakeIdUtil idUtil = SnowflakeIdUtil.getInstance();
+        long before = idUtil.nextId();
+        long[] ids = new long[10000];
+        idUtil.nextIdBlock(ids);
+        long last = before;
+        for (long id : ids) {
+            assertTrue(id > last);
+            last = id;
+        }
+        assertTrue(idUtil.nextId() > last);
+    }
+
+    @Test
+    void testNextIdsConcurrentWithSingle() throws InterruptedException {
+        SnowflakeIdUtil idUtil = SnowflakeIdUtil.getInstance();
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            boolean batch = (t & 1) == 0;
+            new Thread(() -> {
+                if (batch) {
+                    for (long id : idUtil.nextIds(PER_THREAD)) {
+                        ids.add(id);
+                    }
+                } else {
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        ids.add(idUtil.nextIdLockFree());
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        assertEquals(THREADS * PER_THREAD, ids.size());
+    }
+
+    @Test
+    void testClockBackwardsDoesNotBlock() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        SnowflakeIdUtil idUtil = new SnowflakeIdUtil(1);
+        idUtil.setTimeSource(clock::get);
+        long last = idUtil.nextId();
+        // 回拨 5 秒，期间生成超过一毫秒容量的ID
+        clock.addAndGet(-5000);
+        long start = System.nanoTime();
+        for (int i = 0; i < 10000; i++) {
+            long id = idUtil.nextId();
+            assertTrue(id > last);
+            last = id;
+        }
+        long[] block = idUtil.nextIds(5000);
+        for (long id : block) {
+            assertTrue(id > last);
+            last = id;
+        }
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        assertEquals(1, idUtil.getClockBackwardsEvents());
+        assertTrue(idUtil.getMaxClockBackwardsMillis() >= 5000);
+        assertTrue(idUtil.getClockBackwardsGenerations() > 0);
+        // 时钟恢复后再次回拨，计为第二次
+        clock.addAndGet(6000);
+        idUtil.nextId();
+        clock.addAndGet(-10);
+        idUtil.nextId();
+        assertEquals(2, idUtil.getClockBackwardsEvents());
+    }
+
+    @Test
+    void testClockBackwardsGenerationsCountedOncePerId() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        SnowflakeIdUtil idUtil = new SnowflakeIdUtil(3);
+        idUtil.setTimeSource(clock::get);
+        idUtil.nextId();
+        clock.addAndGet(-100);
+        for (int i = 0; i < 10; i++) {
+            idUtil.nextIdLockFree();
+        }
+        assertEquals(10, idUtil.getClockBackwardsGenerations());
+    }
+
+    @Test
+    void testTimestampBeforeEpochRejected() {
+        SnowflakeIdUtil idUtil = new SnowflakeIdUtil(4);
+        idUtil.setTimeSource(() -> SnowflakeLayout.DEFAULT_EPOCH - 1);
+        assertThrows(IllegalStateException.class, idUtil::nextId);
+        assertThrows(IllegalStateException.class, () -> idUtil.nextIds(10));
+    }
+
+    @Test
+    void testCachedClockTimeSource() {
+        SnowflakeIdUtil idUtil = new SnowflakeIdUtil(2);
+        idUtil.setTimeSource(CachedClockTimeSource.getInstance());
+        // 超过单毫秒容量，会多次等待下一个滴答
+        long[] ids = idUtil.nextIds(20000);
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i] > ids[i - 1]);
+        }
+        long last = 0;
+        for (int i = 0; i < 20000; i++) {
+            long id = idUtil.nextId();
+            assertTrue(id > last);
+            last = id;
+        }
+        long now = CachedClockTimeSource.getInstance().currentTimeMillis();
+        assertTrue(Math.abs(now - System.currentTimeMillis()) <= 2);
+    }
+
+    @Test
+    void testCachedClockAfterShutdown() {
+        CachedClockTimeSource clock = new CachedClockTimeSource(TimeUnit.MICROSECONDS.toNanos(250));
+        clock.shutdown();
+        SnowflakeIdUtil idUtil = new SnowflakeIdUtil(3);
+        idUtil.setTimeSource(clock);
+        // 停止后仍能越过单毫秒容量，不会停在冻结的时间上
+        long[] ids = idUtil.nextIds(20000);
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i] > ids[i - 1]);
+        }
+        assertTrue(clock.awaitAfter(System.currentTimeMillis()) > 0);
+        assertTrue(Math.abs(clock.currentTimeMillis() - System.currentTimeMillis()) <= 2);
+    }
+
+    @Test
+    void testDecodeWithDefaultLayout() {
+        SnowflakeIdUtil idUtil = new SnowflakeIdUtil(1000);
+        long before = System.currentTimeMillis();
+        long id = idUtil.nextId();
+        SnowflakeId decoded = idUtil.decode(id, new SnowflakeId());
+        assertEquals(1000L, decoded.getWorkerId());
+        assertEquals(0L, decoded.getDatacenterId());
+        assertTrue(decoded.getTimestamp() >= before && decoded.getTimestamp() <= System.currentTimeMillis());
+        // 旧实现按 10 位右移解析机器ID，这里确认按 12 位解析
+        assertTrue(SnowflakeIdUtil.idDecode(new SnowflakeIdUtil(5).nextId()).contains("wid:5\t"));
+    }
+
+    @Test
+    void testCustomLayoutRoundTrip() {
+        // 5位数据中心，5位机器ID，15位序列号，38位时间戳
+        SnowflakeLayout layout = new SnowflakeLayout(38, 5, 5, 15, SnowflakeLayout.DEFAULT_EPOCH);
+        SnowflakeIdUtil idUtil = SnowflakeIdUtil.create(layout, 17, 29);
+        long[] ids = idUtil.nextIds(70000);
+        SnowflakeId decoded = new SnowflakeId();
+        long last = 0;
+        for (long id : ids) {
+            assertTrue(id > last);
+            last = id;
+            layout.decode(id, decoded);
+            assertEquals(17L, decoded.getDatacenterId());
+            assertEquals(29L, decoded.getWorkerId());
+        }
+        long id = layout.encode(SnowflakeLayout.DEFAULT_EPOCH + 123456L, 3, 7, 32767);
+        layout.decode(id, decoded);
+        assertEquals(SnowflakeLayout.DEFAULT_EPOCH + 123456L, decoded.getTimestamp());
+        assertEquals(3L, decoded.getDatacenterId());
+        assertEquals(7L, decoded.getWorkerId());
+        assertEquals(32767L, decoded.getSequence());
+    }
+
+    @Test
+    void testInvalidLayout() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeLayout(41, 0, 10, 11, SnowflakeLayout.DEFAULT_EPOCH));
+        assertThrows(IllegalArgumentException.class,
+                () -> SnowflakeIdUtil.create(new SnowflakeLayout(41, 2, 8, 12, 0L), 4, 0));
+    }
+}
@@ -0,0 +1,96 @@
+package com.liuiie.demo.utils.lock;
+
+import com.alibaba.fastjson.support.spring.FastJsonRedisSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 可切换格式的 Redis 值序列化器
+ *
+ * @author Liuiie
+ * @since 2026/10/18 22:20
+ */
+public class CompactRedisSerializerTest {
+
+    @Test
+    void testKryoRoundTrip() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(CompactRedisSerializer.Format.KRYO, 1024);
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", 42L);
+        value.put("name", "liuiie");
+        List<Integer> scores = new ArrayList<>();
+        scores.add(1);
+        scores.add(2);
+        value.put("scores", scores);
+        byte[] bytes = serializer.serialize(value);
+        assertEquals((byte) 0xC1, bytes[0]);
+        assertEquals(1, bytes[1]);
+        assertEquals(value, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void testLargeValueIsCompressed() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(CompactRedisSerializer.Format.KRYO, 1024);
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            value.append("session-");
+        }
+        byte[] bytes = serializer.serialize(value.toString());
+        assertEquals(2, bytes[1]);
+        assertTrue(bytes.length < value.length());
+        assertEquals(value.toString(), serializer.deserialize(bytes));
+    }
+
+    @Test
+    void testCorruptedLz4LengthRejected() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(CompactRedisSerializer.Format.KRYO, 1024);
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            value.append("session-");
+        }
+        byte[] bytes = serializer.serialize(value.toString());
+        assertEquals(2, bytes[1]);
+
+        // 负数长度
+        byte[] negative = bytes.clone();
+        negative[2] = (byte) 0xFF;
+        assertThrows(SerializationException.class, () -> serializer.deserialize(negative));
+        // 接近 2GB 的长度，远超压缩数据可能展开的大小
+        byte[] huge = bytes.clone();
+        huge[2] = 0x7F;
+        assertThrows(SerializationException.class, () -> serializer.deserialize(huge));
+        // 超过配置的上限
+        CompactRedisSerializer limited = new CompactRedisSerializer(CompactRedisSerializer.Format.KRYO, 1024, 1024);
+        assertThrows(SerializationException.class, () -> limited.deserialize(bytes));
+        assertEquals(value.toString(), serializer.deserialize(bytes));
+    }
+
+    @Test
+    void testJsonValuesStillReadable() {
+        byte[] json = "{\"name\":\"liuiie\"}".getBytes(StandardCharsets.UTF_8);
+        CompactRedisSerializer serializer = new CompactRedisSerializer(CompactRedisSerializer.Format.KRYO, 1024);
+        Object value = serializer.deserialize(json);
+        assertEquals("liuiie", ((Map<?, ?>) value).get("name"));
+    }
+
+    @Test
+    void testJsonFormatMatchesFastJson() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(CompactRedisSerializer.Format.JSON, 1024);
+        Map<String, Object> value = new HashMap<>();
+        value.put("name", "liuiie");
+        assertArrayEquals(new FastJsonRedisSerializer<>(Object.class).serialize(value), serializer.serialize(value));
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+}
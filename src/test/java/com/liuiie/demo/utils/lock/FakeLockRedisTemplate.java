@@ -0,0 +1,554 @@
+package com.liuiie.demo.utils.lock;
+
+import com.liuiie.demo.utils.common.SpringContextUtil;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 在内存中模拟 RedisLockUtil 使用的 Lua 脚本，按脚本内容区分。
+ *      模拟发生在连接层：脚本仍经由 RedisTemplate 的脚本执行器以 EVALSHA 发出，未缓存的脚本返回 NOSCRIPT，
+ *      由执行器回落到 EVAL 并缓存。RedisLockUtil 在一个 JVM 中只从容器加载一次 RedisTemplate，
+ *      所有锁相关的测试共用同一个实例，测试之间使用不同的锁名即可互不影响
+ *
+ * @author Liuiie
+ * @since 2026/10/18 23:00
+ */
+class FakeLockRedisTemplate extends StringRedisTemplate {
+    static final FakeLockRedisTemplate INSTANCE = new FakeLockRedisTemplate();
+
+    static final FakeListenerContainer LISTENER_CONTAINER = new FakeListenerContainer();
+
+    private static Object previousAppContext;
+
+    private static Object previousBeanFactory;
+
+    /**
+     * 普通锁：key -> requestId 与过期时间，只在持有 this 监视器时访问
+     */
+    private final Map<String, Lease> locks = new HashMap<>();
+
+    /**
+     * 读写锁的 hash：key -> 写者、读者与各读者的租约，只在持有 this 监视器时访问
+     */
+    private final Map<String, ReadWriteHash> readWriteLocks = new HashMap<>();
+
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Object>> lastArgs = new ConcurrentHashMap<>();
+
+    private final Map<String, List<String>> lastKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 以 EVAL 执行的次数，首次执行或脚本缓存被清空后才会出现
+     */
+    private final Map<String, AtomicInteger> evalCalls = new ConcurrentHashMap<>();
+
+    /**
+     * 已缓存的脚本：SHA1 -> 脚本内容
+     */
+    private final Map<String, String> scripts = new ConcurrentHashMap<>();
+
+    /**
+     * 脚本发布的消息：频道 -> 消息
+     */
+    private final Map<String, List<String>> published = new ConcurrentHashMap<>();
+
+    /**
+     * 批量续期脚本是否返回成功
+     */
+    volatile boolean renewing = true;
+
+    /**
+     * 接下来的若干次批量续期直接抛出异常
+     */
+    final AtomicInteger renewalErrors = new AtomicInteger();
+
+    /**
+     * 是否按 Redis Cluster 处理：一个脚本的 KEYS 不在同一槽位时返回 CROSSSLOT 错误
+     */
+    volatile boolean cluster;
+
+    private FakeLockRedisTemplate() {
+        RedisConnection connection = mock(RedisConnection.class, this::answer);
+        RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        setConnectionFactory(connectionFactory);
+        afterPropertiesSet();
+    }
+
+    /**
+     * 把模拟的 RedisTemplate 与监听容器注册到 SpringContextUtil
+     */
+    static void install() {
+        previousAppContext = ReflectionTestUtils.getField(SpringContextUtil.class, "appContext");
+        previousBeanFactory = ReflectionTestUtils.getField(SpringContextUtil.class, "beanFactory");
+        GenericApplicationContext applicationContext = new GenericApplicationContext();
+        applicationContext.getBeanFactory().registerSingleton(RedisLockUtil.BEAN_STRING_REDIS_NAME, INSTANCE);
+        applicationContext.getBeanFactory().registerSingleton(RedisLockUtil.BEAN_LISTENER_CONTAINER_NAME, LISTENER_CONTAINER);
+        applicationContext.refresh();
+        ReflectionTestUtils.setField(SpringContextUtil.class, "appContext", applicationContext);
+        ReflectionTestUtils.setField(SpringContextUtil.class, "beanFactory", applicationContext.getBeanFactory());
+    }
+
+    static void uninstall() {
+        ReflectionTestUtils.setField(SpringContextUtil.class, "appContext", previousAppContext);
+        ReflectionTestUtils.setField(SpringContextUtil.class, "beanFactory", previousBeanFactory);
+    }
+
+    /**
+     * 脚本被执行的次数
+     */
+    int calls(String script) {
+        AtomicInteger count = calls.get(script);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 脚本最近一次执行时的参数
+     */
+    List<Object> lastArgs(String script) {
+        return lastArgs.get(script);
+    }
+
+    /**
+     * 脚本最近一次执行时的 KEYS
+     */
+    List<String> lastKeys(String script) {
+        return lastKeys.get(script);
+    }
+
+    /**
+     * 脚本以 EVAL 执行的次数
+     */
+    int evalCalls(String script) {
+        AtomicInteger count = evalCalls.get(script);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 相当于 SCRIPT FLUSH，之后的 EVALSHA 都会返回 NOSCRIPT
+     */
+    void flushScripts() {
+        scripts.clear();
+    }
+
+    /**
+     * 频道上收到的消息
+     */
+    List<String> published(String channel) {
+        return published.getOrDefault(channel, Collections.emptyList());
+    }
+
+    synchronized boolean isLocked(String key) {
+        return holder(RedisLockUtil.KEY_PREFIX + key) != null;
+    }
+
+    /**
+     * 读写锁中租约未过期的读者
+     */
+    synchronized Set<String> readers(String key) {
+        ReadWriteHash hash = readWriteHash(RedisLockUtil.KEY_PREFIX + key + RedisLockUtil.RW_LOCK_SUFFIX, System.currentTimeMillis());
+        return hash == null ? Collections.emptySet() : new HashSet<>(hash.readers.keySet());
+    }
+
+    /**
+     * 当作其他实例在 Redis 中加了读锁，之后既不续期也不解锁
+     */
+    synchronized void readLockRemotely(String key, String requestId, long expireMillis) {
+        readLock(RedisLockUtil.KEY_PREFIX + key + RedisLockUtil.RW_LOCK_SUFFIX, requestId, expireMillis, System.currentTimeMillis());
+    }
+
+    /**
+     * 当作其他实例直接在 Redis 中写入一把普通锁
+     */
+    synchronized void lockRemotely(String key, String requestId, long expireMillis) {
+        locks.put(RedisLockUtil.KEY_PREFIX + key, new Lease(requestId, System.currentTimeMillis() + expireMillis));
+    }
+
+    /**
+     * 连接上的 EVALSHA 与 EVAL 交给脚本模拟，其余方法返回默认值
+     */
+    private Object answer(InvocationOnMock invocation) throws Throwable {
+        String method = invocation.getMethod().getName();
+        if (!"evalSha".equals(method) && !"eval".equals(method)) {
+            return RETURNS_DEFAULTS.answer(invocation);
+        }
+        // 可变参数已展开：脚本或 SHA1、返回类型、KEYS 数量、KEYS 与 ARGV
+        Object[] arguments = invocation.getArguments();
+        int numKeys = (Integer) arguments[2];
+        List<String> keys = new ArrayList<>(numKeys);
+        List<String> args = new ArrayList<>(arguments.length - 3 - numKeys);
+        for (int i = 3; i < arguments.length; i++) {
+            String value = new String((byte[]) arguments[i], StandardCharsets.UTF_8);
+            (i < 3 + numKeys ? keys : args).add(value);
+        }
+        String script;
+        if ("eval".equals(method)) {
+            script = new String((byte[]) arguments[0], StandardCharsets.UTF_8);
+            scripts.put(sha1(script), script);
+            evalCalls.computeIfAbsent(nameOf(script), k -> new AtomicInteger()).incrementAndGet();
+        } else {
+            String sha = arguments[0] instanceof byte[] ? new String((byte[]) arguments[0], StandardCharsets.UTF_8) : (String) arguments[0];
+            script = scripts.get(sha);
+            if (script == null) {
+                throw new RedisSystemException("NOSCRIPT No matching script. Please use EVAL.", null);
+            }
+        }
+        if (cluster && keys.stream().map(ClusterSlotHashUtil::calculateSlot).distinct().count() > 1) {
+            throw new RedisSystemException("CROSSSLOT Keys in request don't hash to the same slot", null);
+        }
+        return run(script, keys, args);
+    }
+
+    private synchronized Object run(String script, List<String> keys, List<String> args) {
+        String name = nameOf(script);
+        calls.computeIfAbsent(name, k -> new AtomicInteger()).incrementAndGet();
+        lastArgs.put(name, new ArrayList<>(args));
+        lastKeys.put(name, keys);
+        long now = System.currentTimeMillis();
+        switch (name) {
+            case "tryLock":
+                Lease lease = locks.get(keys.get(0));
+                if (lease != null && lease.expiresAt > now) {
+                    return lease.expiresAt - now;
+                }
+                locks.put(keys.get(0), new Lease(args.get(0), now + Long.parseLong(args.get(1))));
+                return null;
+            case "unlock":
+                if (!args.get(0).equals(holder(keys.get(0)))) {
+                    return 0L;
+                }
+                locks.remove(keys.get(0));
+                publish(args.get(1), args.get(0));
+                return 1L;
+            case "tryLockAll":
+                for (int i = 0; i < keys.size(); i++) {
+                    if (holder(keys.get(i)) != null) {
+                        return Arrays.asList((long) i + 1, locks.get(keys.get(i)).expiresAt - now);
+                    }
+                }
+                for (String key : keys) {
+                    locks.put(key, new Lease(args.get(0), now + Long.parseLong(args.get(1))));
+                }
+                return Collections.singletonList(0L);
+            case "unlockAll":
+                long released = 0;
+                for (int i = 0; i < keys.size(); i++) {
+                    if (args.get(0).equals(holder(keys.get(i)))) {
+                        locks.remove(keys.get(i));
+                        publish(args.get(i + 1), args.get(0));
+                        released++;
+                    }
+                }
+                return released;
+            case "batchExtend":
+                if (renewalErrors.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    throw new IllegalStateException("模拟的续期异常");
+                }
+                List<Long> result = new ArrayList<>(keys.size());
+                int a = 0;
+                for (String key : keys) {
+                    long expireMillis = Long.parseLong(args.get(a));
+                    int n = Integer.parseInt(args.get(a + 1));
+                    List<String> requestIds = args.subList(a + 2, a + 2 + n);
+                    a += 2 + n;
+                    if (!renewing) {
+                        result.add(0L);
+                    } else if (key.endsWith(RedisLockUtil.RW_LOCK_SUFFIX)) {
+                        result.add(extendReadWrite(key, requestIds, expireMillis, now) ? 1L : 0L);
+                    } else if (requestIds.contains(holder(key))) {
+                        locks.get(key).expiresAt = now + expireMillis;
+                        result.add(1L);
+                    } else {
+                        result.add(0L);
+                    }
+                }
+                return result;
+            case "readLock":
+                return readLock(keys.get(0), args.get(0), Long.parseLong(args.get(1)), now) ? 1L : 0L;
+            case "writeLock":
+                return writeLock(keys.get(0), args.get(0), Long.parseLong(args.get(1)), now) ? 1L : 0L;
+            case "readUnlock":
+                return readUnlock(keys.get(0), args.get(0), now);
+            case "writeUnlock":
+                return writeUnlock(keys.get(0), args.get(0), now);
+            default:
+                throw new IllegalStateException("未模拟的脚本: " + script);
+        }
+    }
+
+    /**
+     * 未过期的读写锁 hash，并清除租约已过期的读者，与脚本中的 prune 一致
+     */
+    private ReadWriteHash readWriteHash(String key, long now) {
+        ReadWriteHash hash = readWriteLocks.get(key);
+        if (hash == null) {
+            return null;
+        }
+        hash.deadlines.entrySet().removeIf(deadline -> {
+            if (deadline.getValue() > now) {
+                return false;
+            }
+            hash.readers.remove(deadline.getKey());
+            return true;
+        });
+        if (hash.expiresAt <= now || hash.isEmpty()) {
+            readWriteLocks.remove(key);
+            return null;
+        }
+        return hash;
+    }
+
+    private boolean readLock(String key, String requestId, long expireMillis, long now) {
+        ReadWriteHash hash = readWriteHash(key, now);
+        if (hash != null && hash.writer != null && !hash.writer.equals(requestId)) {
+            return false;
+        }
+        if (hash == null) {
+            hash = new ReadWriteHash();
+            readWriteLocks.put(key, hash);
+        }
+        hash.readers.merge(requestId, 1, Integer::sum);
+        hash.deadlines.merge(requestId, now + expireMillis, Math::max);
+        hash.expiresAt = Math.max(hash.expiresAt, now + expireMillis);
+        return true;
+    }
+
+    private boolean writeLock(String key, String requestId, long expireMillis, long now) {
+        ReadWriteHash hash = readWriteHash(key, now);
+        if (hash != null && !requestId.equals(hash.writer)) {
+            return false;
+        }
+        if (hash == null) {
+            hash = new ReadWriteHash();
+            hash.writer = requestId;
+            readWriteLocks.put(key, hash);
+        }
+        hash.writes++;
+        hash.expiresAt = now + expireMillis;
+        return true;
+    }
+
+    private long readUnlock(String key, String requestId, long now) {
+        ReadWriteHash hash = readWriteLocks.get(key);
+        if (hash == null || hash.expiresAt <= now || !hash.readers.containsKey(requestId)) {
+            return -1L;
+        }
+        int count = hash.readers.merge(requestId, -1, Integer::sum);
+        if (count <= 0) {
+            hash.readers.remove(requestId);
+            hash.deadlines.remove(requestId);
+            if (hash.isEmpty()) {
+                readWriteLocks.remove(key);
+            }
+        }
+        return count;
+    }
+
+    private long writeUnlock(String key, String requestId, long now) {
+        ReadWriteHash hash = readWriteLocks.get(key);
+        if (hash == null || hash.expiresAt <= now || !requestId.equals(hash.writer)) {
+            return -1L;
+        }
+        int count = --hash.writes;
+        if (count <= 0) {
+            hash.writer = null;
+            if (hash.isEmpty()) {
+                readWriteLocks.remove(key);
+            }
+        }
+        return count;
+    }
+
+    private boolean extendReadWrite(String key, List<String> requestIds, long expireMillis, long now) {
+        ReadWriteHash hash = readWriteHash(key, now);
+        if (hash == null) {
+            return false;
+        }
+        boolean held = false;
+        for (String requestId : requestIds) {
+            if (hash.readers.containsKey(requestId)) {
+                hash.deadlines.put(requestId, now + expireMillis);
+                held = true;
+            } else if (requestId.equals(hash.writer)) {
+                held = true;
+            }
+        }
+        if (held) {
+            hash.expiresAt = Math.max(hash.expiresAt, now + expireMillis);
+        }
+        return held;
+    }
+
+    /**
+     * 普通锁未过期时的持有者
+     */
+    private String holder(String key) {
+        Lease lease = locks.get(key);
+        if (lease == null || lease.expiresAt <= System.currentTimeMillis()) {
+            locks.remove(key);
+            return null;
+        }
+        return lease.requestId;
+    }
+
+    private void publish(String channel, String message) {
+        published.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>()).add(message);
+        LISTENER_CONTAINER.dispatch(channel, message);
+    }
+
+    private static String sha1(String script) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String nameOf(String script) {
+        if (script.contains("'NX', 'PX'")) {
+            return "tryLock";
+        }
+        if (script.contains("TYPE")) {
+            return "batchExtend";
+        }
+        if (script.contains("#KEYS") && script.contains("EXISTS")) {
+            return "tryLockAll";
+        }
+        if (script.contains("#KEYS") && script.contains("PUBLISH")) {
+            return "unlockAll";
+        }
+        if (script.contains("PUBLISH")) {
+            return "unlock";
+        }
+        if (script.contains("'writes', -1)")) {
+            return "writeUnlock";
+        }
+        if (script.contains("field, -1)")) {
+            return "readUnlock";
+        }
+        if (script.contains("'writes', 1)")) {
+            return "writeLock";
+        }
+        return script.contains("'r:' .. ARGV[1], 1)") ? "readLock" : "unknown";
+    }
+
+    /**
+     * 把脚本中 PUBLISH 的消息分发给订阅者的监听容器。
+     *      与真实容器一样异步订阅和分发，subscribeDelayMillis 内的订阅尚未生效，收不到消息
+     */
+    static class FakeListenerContainer extends RedisMessageListenerContainer {
+        private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fake-redis-listener");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        /**
+         * 已生效的订阅：频道 -> 监听器
+         */
+        private final Map<String, List<MessageListener>> subscriptions = new ConcurrentHashMap<>();
+
+        private final AtomicInteger subscribeCalls = new AtomicInteger();
+
+        volatile long subscribeDelayMillis;
+
+        /**
+         * 频道上已生效的订阅数量
+         */
+        int subscribers(String channel) {
+            return subscriptions.getOrDefault(channel, Collections.emptyList()).size();
+        }
+
+        /**
+         * 累计的订阅次数
+         */
+        int subscribeCalls() {
+            return subscribeCalls.get();
+        }
+
+        @Override
+        public void addMessageListener(MessageListener listener, Topic topic) {
+            subscribeCalls.incrementAndGet();
+            executor.schedule(() -> subscriptions.computeIfAbsent(topic.getTopic(), k -> new CopyOnWriteArrayList<>()).add(listener),
+                    subscribeDelayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void removeMessageListener(MessageListener listener, Topic topic) {
+            executor.execute(() -> subscriptions.getOrDefault(topic.getTopic(), Collections.emptyList()).remove(listener));
+        }
+
+        private void dispatch(String channel, String message) {
+            executor.execute(() -> {
+                for (MessageListener listener : subscriptions.getOrDefault(channel, Collections.emptyList())) {
+                    listener.onMessage(new DefaultMessage(channel.getBytes(StandardCharsets.UTF_8),
+                            message.getBytes(StandardCharsets.UTF_8)), null);
+                }
+            });
+        }
+    }
+
+    private static class ReadWriteHash {
+        private String writer;
+
+        private int writes;
+
+        private final Map<String, Integer> readers = new HashMap<>();
+
+        private final Map<String, Long> deadlines = new HashMap<>();
+
+        private long expiresAt;
+
+        private boolean isEmpty() {
+            return writer == null && readers.isEmpty();
+        }
+    }
+
+    private static class Lease {
+        private final String requestId;
+
+        private long expiresAt;
+
+        private Lease(String requestId, long expiresAt) {
+            this.requestId = requestId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.liuiie.demo.utils.lock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 分布式锁事件日志的失败事件抽样上限
+ *
+ * @author Liuiie
+ * @since 2026/10/18 23:45
+ */
+public class LockEventLoggerTest {
+
+    @Test
+    void testFailureSamplesAreCappedPerInterval() {
+        LockEventLogger.flush();
+        for (int i = 0; i < 1000; i++) {
+            LockEventLogger.record(LockEventLogger.Kind.LOCK, LockEventLogger.Event.FAILED, "EVENT_FAILED_" + i);
+        }
+        assertEquals(64, sampledEvents());
+        assertEquals(936L, ((LongAdder) ReflectionTestUtils.getField(LockEventLogger.class, "DROPPED_FAILURE_SAMPLES")).sum());
+
+        // 汇总后名额重置
+        LockEventLogger.flush();
+        LockEventLogger.record(LockEventLogger.Kind.LOCK, LockEventLogger.Event.NOT_HELD, "EVENT_NOT_HELD");
+        assertEquals(1, sampledEvents());
+    }
+
+    private static int sampledEvents() {
+        AtomicReferenceArray<?> ring = (AtomicReferenceArray<?>) ReflectionTestUtils.getField(LockEventLogger.class, "RING");
+        int sampled = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            if (ring.get(i) != null) {
+                sampled++;
+            }
+        }
+        return sampled;
+    }
+}
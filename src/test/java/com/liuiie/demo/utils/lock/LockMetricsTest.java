@@ -0,0 +1,44 @@
+package com.liuiie.demo.utils.lock;
+
+import com.google.common.cache.Cache;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分布式锁指标的持有时间跟踪
+ *
+ * @author Liuiie
+ * @since 2026/10/18 23:25
+ */
+public class LockMetricsTest {
+
+    @Test
+    void testReleaseRemovesTrackedHold() {
+        long before = acquiredAt().size();
+        LockMetrics.recordAcquire(LockMetrics.Backend.REDIS, LockMetrics.LockType.LOCK, "METRICS_HOLD", "owner-1",
+                System.nanoTime(), true);
+        // 重入不重复登记
+        LockMetrics.recordAcquire(LockMetrics.Backend.REDIS, LockMetrics.LockType.LOCK, "METRICS_HOLD", "owner-1",
+                System.nanoTime(), true);
+        assertEquals(before + 1, acquiredAt().size());
+        LockMetrics.recordRelease(LockMetrics.Backend.REDIS, LockMetrics.LockType.LOCK, "METRICS_HOLD", "owner-1");
+        assertEquals(before, acquiredAt().size());
+    }
+
+    @Test
+    void testUnreleasedHoldsAreBounded() {
+        for (int i = 0; i < 70000; i++) {
+            LockMetrics.recordAcquire(LockMetrics.Backend.REDISSON, LockMetrics.LockType.LOCK, "METRICS_LEAK_" + i, "owner",
+                    System.nanoTime(), true);
+        }
+        assertTrue(acquiredAt().size() <= 65536);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<String, Long> acquiredAt() {
+        return (Cache<String, Long>) ReflectionTestUtils.getField(LockMetrics.class, "ACQUIRED_AT");
+    }
+}
@@ -0,0 +1,370 @@
+package com.liuiie.demo.utils.lock;
+
+import com.google.common.cache.Cache;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RedisLockUtil 的读写锁续期与批量加锁指标
+ *
+ * @author Liuiie
+ * @since 2026/10/18 23:15
+ */
+public class RedisLockUtilTest {
+    private static final FakeLockRedisTemplate REDIS = FakeLockRedisTemplate.INSTANCE;
+
+    private static final FakeLockRedisTemplate.FakeListenerContainer LISTENERS = FakeLockRedisTemplate.LISTENER_CONTAINER;
+
+    @BeforeAll
+    static void installRedisTemplate() {
+        FakeLockRedisTemplate.install();
+    }
+
+    @AfterAll
+    static void restoreSpringContext() {
+        FakeLockRedisTemplate.uninstall();
+    }
+
+    @Test
+    void testReadWriteRenewalPassesLocalHolders() throws InterruptedException {
+        String key = "RW_RENEW_HOLDERS";
+        assertTrue(RedisLockUtil.readLock(key, "reader-1", 300, TimeUnit.MILLISECONDS));
+        assertTrue(RedisLockUtil.readLock(key, "reader-2", 300, TimeUnit.MILLISECONDS));
+        waitUntil(() -> {
+            List<Object> args = REDIS.lastArgs("batchExtend");
+            return args != null && args.contains("reader-1") && args.contains("reader-2");
+        });
+        List<Object> args = REDIS.lastArgs("batchExtend");
+        // 有效期、持有者数量、各持有者的 requestId
+        int offset = args.indexOf("300");
+        assertEquals("2", args.get(offset + 1));
+
+        assertTrue(RedisLockUtil.readUnlock(key, "reader-1"));
+        assertTrue(renewalTasks().containsKey(readWriteRenewalId(key)));
+        assertTrue(RedisLockUtil.readUnlock(key, "reader-2"));
+        assertFalse(renewalTasks().containsKey(readWriteRenewalId(key)));
+    }
+
+    @Test
+    void testFailedRenewalResetsReadWriteHolders() throws InterruptedException {
+        String key = "RW_RENEW_FAILED";
+        REDIS.renewing = false;
+        try {
+            assertTrue(RedisLockUtil.readLock(key, "reader-1", 600, TimeUnit.MILLISECONDS));
+            assertTrue(renewalTasks().containsKey(readWriteRenewalId(key)));
+            // 续期失败后任务连同持有者计数一起丢弃
+            waitUntil(() -> !renewalTasks().containsKey(readWriteRenewalId(key)));
+        } finally {
+            REDIS.renewing = true;
+        }
+        // 之后的持有者重新登记续期任务，不会因为残留的计数而没有续期
+        assertTrue(RedisLockUtil.readLock(key, "reader-2", 600, TimeUnit.MILLISECONDS));
+        assertTrue(renewalTasks().containsKey(readWriteRenewalId(key)));
+        assertTrue(RedisLockUtil.readUnlock(key, "reader-1"));
+        assertTrue(renewalTasks().containsKey(readWriteRenewalId(key)));
+        assertTrue(RedisLockUtil.readUnlock(key, "reader-2"));
+        assertFalse(renewalTasks().containsKey(readWriteRenewalId(key)));
+    }
+
+    @Test
+    void testStaleReaderLeaseExpiresWhileOthersRenew() throws InterruptedException {
+        String key = "RW_STALE_READER";
+        // 另一个实例的读者已崩溃，既不续期也不会解锁
+        REDIS.readLockRemotely(key, "crashed", 300);
+        assertTrue(RedisLockUtil.readLock(key, "live", 300, TimeUnit.MILLISECONDS));
+        assertFalse(RedisLockUtil.writeLock(key, "writer", 300, TimeUnit.MILLISECONDS));
+
+        // 本地读者的续期让 hash 一直存在，崩溃读者的租约到期后被清除
+        Thread.sleep(600);
+        assertEquals(Collections.singleton("live"), REDIS.readers(key));
+        assertFalse(RedisLockUtil.writeLock(key, "writer", 300, TimeUnit.MILLISECONDS));
+
+        // 本地读者释放后写者立即可以加锁，不必等整个 hash 过期
+        assertTrue(RedisLockUtil.readUnlock(key, "live"));
+        assertTrue(RedisLockUtil.writeLock(key, "writer", 300, TimeUnit.MILLISECONDS));
+        assertTrue(RedisLockUtil.writeUnlock(key, "writer"));
+    }
+
+    @Test
+    void testLockAllRecordsEveryKey() {
+        assertTrue(RedisLockUtil.tryLockAll(Arrays.asList("ALL_B", "ALL_A"), "all-1", 30, TimeUnit.SECONDS, 0));
+        assertTrue(trackedHolds().containsKey("0:0:ALL_A:all-1"));
+        assertTrue(trackedHolds().containsKey("0:0:ALL_B:all-1"));
+        assertTrue(RedisLockUtil.unlockAll(Arrays.asList("ALL_A", "ALL_B"), "all-1"));
+        assertFalse(trackedHolds().containsKey("0:0:ALL_A:all-1"));
+        assertFalse(trackedHolds().containsKey("0:0:ALL_B:all-1"));
+    }
+
+    @Test
+    void testLockAllFailureTracksNoHold() {
+        assertTrue(RedisLockUtil.tryLockWithNotify("ALL_HELD", "other", 30, TimeUnit.SECONDS, 0));
+        assertFalse(RedisLockUtil.tryLockAll(Arrays.asList("ALL_FREE", "ALL_HELD"), "all-2", 30, TimeUnit.SECONDS, 0));
+        assertFalse(trackedHolds().containsKey("0:0:ALL_FREE:all-2"));
+        assertFalse(REDIS.isLocked("ALL_FREE"));
+        assertTrue(RedisLockUtil.unlock("ALL_HELD", "other"));
+    }
+
+    @Test
+    void testWatchdogRenewsHeldLock() throws InterruptedException {
+        String key = "WATCHDOG_RENEW";
+        assertTrue(RedisLockUtil.tryLockWithNotify(key, "owner", 300, TimeUnit.MILLISECONDS, 0));
+        // 超过两个有效期后仍被持有
+        Thread.sleep(700);
+        assertTrue(REDIS.isLocked(key));
+        assertTrue(REDIS.lastArgs("batchExtend").contains("owner"));
+        assertTrue(RedisLockUtil.unlock(key, "owner"));
+    }
+
+    @Test
+    void testUnlockCancelsRenewal() throws InterruptedException {
+        String key = "WATCHDOG_CANCEL";
+        assertTrue(RedisLockUtil.tryLockWithNotify(key, "owner", 300, TimeUnit.MILLISECONDS, 0));
+        assertTrue(RedisLockUtil.unlock(key, "owner"));
+        assertFalse(renewalTasks().containsKey(key + ":owner"));
+        // 即使 Redis 中又出现同一 requestId 的锁，看门狗也不再续期
+        REDIS.lockRemotely(key, "owner", 300);
+        Thread.sleep(500);
+        assertFalse(REDIS.isLocked(key));
+    }
+
+    @Test
+    void testWatchdogSurvivesFailedRenewal() throws InterruptedException {
+        String key = "WATCHDOG_FAILURE";
+        REDIS.renewalErrors.set(2);
+        assertTrue(RedisLockUtil.tryLockWithNotify(key, "owner", 600, TimeUnit.MILLISECONDS, 0));
+        waitUntil(() -> REDIS.renewalErrors.get() == 0);
+        // 脚本异常时保留任务，看门狗线程继续下一轮续期
+        assertTrue(renewalTasks().containsKey(key + ":owner"));
+        Thread.sleep(1000);
+        assertTrue(REDIS.isLocked(key));
+        assertTrue(RedisLockUtil.unlock(key, "owner"));
+    }
+
+    @Test
+    void testDueLocksRenewedInOneCachedScript() throws InterruptedException {
+        List<String> keys = Arrays.asList("BATCH_A", "BATCH_B", "BATCH_C");
+        for (String key : keys) {
+            assertTrue(RedisLockUtil.tryLockWithNotify(key, "batch", 300, TimeUnit.MILLISECONDS, 0));
+        }
+        waitUntil(() -> lastRenewedKeys().size() == 3);
+        int evals = REDIS.evalCalls("batchExtend");
+        int renewals = REDIS.calls("batchExtend");
+        Thread.sleep(400);
+        // 之后的续期都以 EVALSHA 执行，三把锁仍由同一次脚本续期
+        assertTrue(REDIS.calls("batchExtend") > renewals);
+        assertEquals(evals, REDIS.evalCalls("batchExtend"));
+        assertEquals(3, lastRenewedKeys().size());
+        for (String key : keys) {
+            assertTrue(REDIS.isLocked(key));
+            assertTrue(RedisLockUtil.unlock(key, "batch"));
+        }
+    }
+
+    @Test
+    void testRenewalFallsBackToEvalAfterScriptFlush() throws InterruptedException {
+        String key = "BATCH_NOSCRIPT";
+        assertTrue(RedisLockUtil.tryLockWithNotify(key, "owner", 300, TimeUnit.MILLISECONDS, 0));
+        waitUntil(() -> REDIS.evalCalls("batchExtend") > 0);
+        int evals = REDIS.evalCalls("batchExtend");
+        REDIS.flushScripts();
+        // NOSCRIPT 之后由 EVAL 重新执行，续期不中断
+        waitUntil(() -> REDIS.evalCalls("batchExtend") == evals + 1);
+        Thread.sleep(400);
+        assertTrue(REDIS.isLocked(key));
+        assertEquals(evals + 1, REDIS.evalCalls("batchExtend"));
+        assertTrue(RedisLockUtil.unlock(key, "owner"));
+    }
+
+    @Test
+    void testCrossSlotRenewalGroupsBySlot() throws InterruptedException {
+        String first = "SLOT_A";
+        String second = "SLOT_B";
+        assertNotEquals(ClusterSlotHashUtil.calculateSlot(RedisLockUtil.KEY_PREFIX + first),
+                ClusterSlotHashUtil.calculateSlot(RedisLockUtil.KEY_PREFIX + second));
+        REDIS.cluster = true;
+        try {
+            assertTrue(RedisLockUtil.tryLockWithNotify(first, "owner", 300, TimeUnit.MILLISECONDS, 0));
+            assertTrue(RedisLockUtil.tryLockWithNotify(second, "owner", 300, TimeUnit.MILLISECONDS, 0));
+            // CROSSSLOT 之后按槽位分别续期，两把锁都不会过期
+            Thread.sleep(700);
+            assertTrue(REDIS.isLocked(first));
+            assertTrue(REDIS.isLocked(second));
+            assertEquals(1, lastRenewedKeys().size());
+            assertTrue(RedisLockUtil.unlock(first, "owner"));
+            assertTrue(RedisLockUtil.unlock(second, "owner"));
+        } finally {
+            REDIS.cluster = false;
+            ReflectionTestUtils.setField(RedisLockUtil.class, "renewBySlot", false);
+        }
+    }
+
+    @Test
+    void testNotifyWaitersShareOneSubscription() throws InterruptedException {
+        String key = "NOTIFY_SHARED";
+        String channel = RedisLockUtil.UNLOCK_CHANNEL_PREFIX + key;
+        REDIS.lockRemotely(key, "other", 30000);
+        int subscribeCalls = LISTENERS.subscribeCalls();
+        List<String> winners = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        for (String requestId : Arrays.asList("waiter-1", "waiter-2")) {
+            new Thread(() -> {
+                if (RedisLockUtil.tryLockWithNotify(key, requestId, 30, TimeUnit.SECONDS, 5000)) {
+                    winners.add(requestId);
+                }
+                done.countDown();
+            }).start();
+        }
+        waitUntil(() -> waiterReferences(key) == 2 && LISTENERS.subscribers(channel) == 1);
+        assertEquals(subscribeCalls + 1, LISTENERS.subscribeCalls());
+
+        // 每条解锁通知唤醒一个等待者
+        assertTrue(RedisLockUtil.unlock(key, "other"));
+        waitUntil(() -> winners.size() == 1);
+        assertEquals(1, waiterReferences(key));
+        assertTrue(RedisLockUtil.unlock(key, winners.get(0)));
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(2, winners.size());
+        assertTrue(RedisLockUtil.unlock(key, winners.get(1)));
+
+        // 最后一个等待者退出时取消订阅
+        assertFalse(waiters().containsKey(key));
+        waitUntil(() -> LISTENERS.subscribers(channel) == 0);
+    }
+
+    @Test
+    void testUnlockNotificationWakesWaiter() throws InterruptedException {
+        String key = "NOTIFY_WAKE";
+        REDIS.lockRemotely(key, "other", 30000);
+        AtomicLong acquiredAt = new AtomicLong();
+        Thread waiter = new Thread(() -> {
+            if (RedisLockUtil.tryLockWithNotify(key, "waiter", 30, TimeUnit.SECONDS, 5000)) {
+                acquiredAt.set(System.nanoTime());
+            }
+        });
+        waiter.start();
+        waitUntil(() -> LISTENERS.subscribers(RedisLockUtil.UNLOCK_CHANNEL_PREFIX + key) == 1);
+        long unlockedAt = System.nanoTime();
+        assertTrue(RedisLockUtil.unlock(key, "other"));
+        waiter.join(2000);
+        assertTrue(acquiredAt.get() > 0);
+        // 由通知唤醒，不用等到下一次重试
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(acquiredAt.get() - unlockedAt) < RedisLockUtil.NOTIFY_REPOLL_MILLIS / 2);
+        assertTrue(RedisLockUtil.unlock(key, "waiter"));
+    }
+
+    @Test
+    void testNotifyWaitTimesOut() {
+        String key = "NOTIFY_TIMEOUT";
+        REDIS.lockRemotely(key, "other", 30000);
+        long start = System.currentTimeMillis();
+        assertFalse(RedisLockUtil.tryLockWithNotify(key, "waiter", 30, TimeUnit.SECONDS, 300));
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue(elapsed >= 300 && elapsed < 1000, "等待了 " + elapsed + "ms");
+        assertFalse(waiters().containsKey(key));
+        assertFalse(renewalTasks().containsKey(key + ":waiter"));
+        assertTrue(RedisLockUtil.unlock(key, "other"));
+    }
+
+    @Test
+    void testUnlockBeforeSubscriptionIsActiveIsNotMissed() throws InterruptedException {
+        String key = "NOTIFY_EARLY_UNLOCK";
+        LISTENERS.subscribeDelayMillis = 300;
+        try {
+            REDIS.lockRemotely(key, "other", 30000);
+            AtomicBoolean acquired = new AtomicBoolean();
+            Thread waiter = new Thread(() -> acquired.set(RedisLockUtil.tryLockWithNotify(key, "waiter", 30, TimeUnit.SECONDS, 5000)));
+            waiter.start();
+            waitUntil(() -> waiterReferences(key) == 1);
+            // 订阅尚未生效，解锁通知没有人收到
+            assertTrue(RedisLockUtil.unlock(key, "other"));
+            assertEquals(0, LISTENERS.subscribers(RedisLockUtil.UNLOCK_CHANNEL_PREFIX + key));
+            // 最多一个重试间隔后重新加锁，而不是等到锁过期或等待超时
+            waiter.join(RedisLockUtil.NOTIFY_REPOLL_MILLIS * 3);
+            assertTrue(acquired.get());
+            assertTrue(RedisLockUtil.unlock(key, "waiter"));
+        } finally {
+            LISTENERS.subscribeDelayMillis = 0;
+        }
+    }
+
+    @Test
+    void testUnlockByNonOwnerKeepsLock() {
+        String key = "UNLOCK_NON_OWNER";
+        assertTrue(RedisLockUtil.tryLockWithNotify(key, "owner", 30, TimeUnit.SECONDS, 0));
+        assertFalse(RedisLockUtil.unlock(key, "intruder"));
+        assertTrue(REDIS.isLocked(key));
+        assertTrue(REDIS.published(RedisLockUtil.UNLOCK_CHANNEL_PREFIX + key).isEmpty());
+        // 非持有者解锁不能停掉持有者的续期
+        assertTrue(renewalTasks().containsKey(key + ":owner"));
+        assertTrue(RedisLockUtil.unlock(key, "owner"));
+    }
+
+    @Test
+    void testOwnerUnlockPublishesNotification() {
+        String key = "UNLOCK_OWNER";
+        assertTrue(RedisLockUtil.tryLockWithNotify(key, "owner", 30, TimeUnit.SECONDS, 0));
+        assertTrue(RedisLockUtil.unlock(key, "owner"));
+        assertFalse(REDIS.isLocked(key));
+        assertEquals(Collections.singletonList("owner"), REDIS.published(RedisLockUtil.UNLOCK_CHANNEL_PREFIX + key));
+        assertFalse(renewalTasks().containsKey(key + ":owner"));
+        // 已释放的锁再次解锁失败，也不会重复通知
+        assertFalse(RedisLockUtil.unlock(key, "owner"));
+        assertEquals(1, REDIS.published(RedisLockUtil.UNLOCK_CHANNEL_PREFIX + key).size());
+    }
+
+    private static List<String> lastRenewedKeys() {
+        List<String> keys = REDIS.lastKeys("batchExtend");
+        return keys == null ? Collections.emptyList() : keys;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Long> trackedHolds() {
+        return ((Cache<String, Long>) ReflectionTestUtils.getField(LockMetrics.class, "ACQUIRED_AT")).asMap();
+    }
+
+    private static String readWriteRenewalId(String key) {
+        return key + RedisLockUtil.RW_LOCK_SUFFIX + ":RW_RENEWAL_" + key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> waiters() {
+        return (Map<String, Object>) ReflectionTestUtils.getField(RedisLockUtil.class, "WAITERS");
+    }
+
+    private static int waiterReferences(String key) {
+        Object waiter = waiters().get(key);
+        return waiter == null ? 0 : (int) ReflectionTestUtils.getField(waiter, "references");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> renewalTasks() {
+        return (Map<String, Object>) ReflectionTestUtils.getField(RedisLockUtil.class, "RENEWAL_TASKS");
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.liuiie.demo.utils.lock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Redis 近端缓存的读取、回填与清除通知
+ *
+ * @author Liuiie
+ * @since 2026/10/18 23:55
+ */
+public class RedisNearCacheTest {
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+
+    private final RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+
+    private final RedisNearCache nearCache = new RedisNearCache(stringRedisTemplate, listenerContainer,
+            Collections.singletonList("CONFIG_"), 100, 1, TimeUnit.MINUTES);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void testSubscribesToInvalidateChannel() {
+        verify(listenerContainer).addMessageListener(eq(nearCache), any(ChannelTopic.class));
+        assertTrue(nearCache.isCached("CONFIG_SITE"));
+        assertFalse(nearCache.isCached("SESSION_1"));
+    }
+
+    @Test
+    void testGetLoadsOnceUntilInvalidated() {
+        assertEquals("v1", nearCache.get("CONFIG_SITE", () -> load("v1")));
+        assertEquals("v1", nearCache.get("CONFIG_SITE", () -> load("v2")));
+        assertEquals(1, loads.get());
+        assertEquals(1, nearCache.hitCount());
+        assertEquals(1, nearCache.missCount());
+
+        nearCache.invalidate("CONFIG_SITE");
+        verify(stringRedisTemplate).convertAndSend(RedisNearCache.INVALIDATE_CHANNEL, "KCONFIG_SITE");
+        assertEquals("v2", nearCache.get("CONFIG_SITE", () -> load("v2")));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testMissingValueIsCached() {
+        assertNull(nearCache.get("CONFIG_MISSING", () -> load(null)));
+        assertNull(nearCache.get("CONFIG_MISSING", () -> load(null)));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testRemoteInvalidation() {
+        nearCache.get("CONFIG_A", () -> load("a"));
+        nearCache.get("CONFIG_B", () -> load("b"));
+        nearCache.onMessage(message("KCONFIG_A"), null);
+        assertEquals("a2", nearCache.get("CONFIG_A", () -> load("a2")));
+        assertEquals("b", nearCache.get("CONFIG_B", () -> load("b2")));
+
+        nearCache.onMessage(message("A"), null);
+        assertEquals(0, nearCache.size());
+        assertEquals("b2", nearCache.get("CONFIG_B", () -> load("b2")));
+    }
+
+    @Test
+    void testHashGetCachesFieldsAndInvalidatesWholeHash() {
+        assertEquals("red", nearCache.hashGet("CONFIG_THEME", "color", () -> load("red")));
+        assertEquals("red", nearCache.hashGet("CONFIG_THEME", "color", () -> load("blue")));
+        assertEquals("12", nearCache.hashGet("CONFIG_THEME", "size", () -> load("12")));
+        assertEquals(2, loads.get());
+
+        nearCache.invalidate("CONFIG_THEME");
+        assertEquals("blue", nearCache.hashGet("CONFIG_THEME", "color", () -> load("blue")));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testNullHashKeyBypassesCache() {
+        assertEquals("x", nearCache.hashGet("CONFIG_THEME", null, () -> load("x")));
+        assertEquals("y", nearCache.hashGet("CONFIG_THEME", null, () -> load("y")));
+        assertEquals(2, loads.get());
+    }
+
+    private Object load(Object value) {
+        loads.incrementAndGet();
+        return value;
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(RedisNearCache.INVALIDATE_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,286 @@
+package com.liuiie.demo.utils.lock;
+
+import com.liuiie.demo.utils.common.SpringContextUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * RedisUtil 每个操作访问 Redis 的次数。
+ *      opsForXxx 只是获取本地的操作对象，不计入；其余对 RedisTemplate 及操作对象的调用各对应一次网络往返
+ *
+ * @author Liuiie
+ * @since 2026/10/18 21:50
+ */
+@SuppressWarnings("unchecked")
+public class RedisUtilRoundTripTest {
+    private static final RedisTemplate<String, Object> REDIS_TEMPLATE = mock(RedisTemplate.class);
+
+    private static final ValueOperations<String, Object> VALUE_OPERATIONS = mock(ValueOperations.class);
+
+    private static final SetOperations<String, Object> SET_OPERATIONS = mock(SetOperations.class);
+
+    /**
+     * 只缓存 CONFIG_ 前缀，其余测试使用的 SESSION_ key 不经过近端缓存
+     */
+    private static final RedisNearCache NEAR_CACHE = new RedisNearCache(mock(StringRedisTemplate.class),
+            mock(RedisMessageListenerContainer.class), Collections.singletonList("CONFIG_"), 100, 1, TimeUnit.MINUTES);
+
+    private static Object previousAppContext;
+
+    private static Object previousBeanFactory;
+
+    private final RedisUtil redisUtil = new RedisUtil();
+
+    @BeforeAll
+    static void installRedisTemplate() {
+        previousAppContext = ReflectionTestUtils.getField(SpringContextUtil.class, "appContext");
+        previousBeanFactory = ReflectionTestUtils.getField(SpringContextUtil.class, "beanFactory");
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBean(RedisUtil.BEAN_REDIS_NAME, RedisTemplate.class)).thenReturn(REDIS_TEMPLATE);
+        when(applicationContext.getBean(RedisUtil.BEAN_NEAR_CACHE_NAME, RedisNearCache.class)).thenReturn(NEAR_CACHE);
+        ConfigurableListableBeanFactory beanFactory = mock(ConfigurableListableBeanFactory.class);
+        when(beanFactory.containsBean(RedisUtil.BEAN_NEAR_CACHE_NAME)).thenReturn(true);
+        ReflectionTestUtils.setField(SpringContextUtil.class, "appContext", applicationContext);
+        ReflectionTestUtils.setField(SpringContextUtil.class, "beanFactory", beanFactory);
+        when(REDIS_TEMPLATE.opsForValue()).thenReturn(VALUE_OPERATIONS);
+        when(REDIS_TEMPLATE.opsForSet()).thenReturn(SET_OPERATIONS);
+    }
+
+    @AfterAll
+    static void restoreSpringContext() {
+        ReflectionTestUtils.setField(SpringContextUtil.class, "appContext", previousAppContext);
+        ReflectionTestUtils.setField(SpringContextUtil.class, "beanFactory", previousBeanFactory);
+    }
+
+    @BeforeEach
+    void resetInvocations() {
+        clearInvocations(REDIS_TEMPLATE, VALUE_OPERATIONS, SET_OPERATIONS);
+    }
+
+    @Test
+    void testRemoveIsOneRoundTrip() {
+        redisUtil.remove("SESSION_1");
+        assertEquals(1, roundTrips());
+        verify(REDIS_TEMPLATE).delete("SESSION_1");
+    }
+
+    @Test
+    void testRemoveManyIsOneRoundTrip() {
+        redisUtil.remove("SESSION_1", "SESSION_2", "SESSION_3");
+        assertEquals(1, roundTrips());
+        verify(REDIS_TEMPLATE).delete(Arrays.asList("SESSION_1", "SESSION_2", "SESSION_3"));
+    }
+
+    @Test
+    void testSetWithExpireIsOneRoundTrip() {
+        redisUtil.set("SESSION_1", "user", 1800L);
+        assertEquals(1, roundTrips());
+        verify(VALUE_OPERATIONS).set("SESSION_1", "user", 1800L, TimeUnit.SECONDS);
+        verify(REDIS_TEMPLATE, never()).expire(anyString(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    void testRemoveSetAllIsOneRoundTrip() {
+        redisUtil.removeSetAll("SESSION_SET");
+        assertEquals(1, roundTrips());
+        verify(REDIS_TEMPLATE).unlink("SESSION_SET");
+    }
+
+    @Test
+    void testRemovePatternUnlinksInBatches() {
+        Iterator<byte[]> keys = Stream.of("SESSION_1", "SESSION_2", "SESSION_3", "SESSION_4", "SESSION_5")
+                .map(key -> key.getBytes(StandardCharsets.UTF_8))
+                .iterator();
+        Cursor<byte[]> cursor = mock(Cursor.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "hasNext":
+                    return keys.hasNext();
+                case "next":
+                    return keys.next();
+                default:
+                    return null;
+            }
+        });
+        List<Integer> unlinkBatches = new ArrayList<>();
+        RedisConnection connection = mock(RedisConnection.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "scan":
+                    return cursor;
+                case "unlink":
+                    // 可变参数已展开，每个参数是一个 key
+                    int size = invocation.getArguments().length;
+                    unlinkBatches.add(size);
+                    return (long) size;
+                default:
+                    return null;
+            }
+        });
+        when(REDIS_TEMPLATE.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+        List<String> progress = new ArrayList<>();
+
+        long deleted = redisUtil.removePattern("SESSION_*", 2, 0, (scanned, unlinked) -> progress.add(scanned + "/" + unlinked));
+
+        assertEquals(5, deleted);
+        assertEquals(Arrays.asList(2, 2, 1), unlinkBatches);
+        assertEquals(Arrays.asList("2/2", "4/4", "5/5"), progress);
+        // 整个删除过程只占用一次连接
+        assertEquals(1, roundTrips());
+    }
+
+    @Test
+    void testMGetChunksAndKeepsOrder() {
+        List<String> keys = keys(2000);
+        List<Integer> batches = new ArrayList<>();
+        when(VALUE_OPERATIONS.multiGet(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> chunk = invocation.getArgument(0);
+            batches.add(chunk.size());
+            return chunk.stream().map(key -> "v:" + key).collect(Collectors.toList());
+        });
+
+        List<Object> values = redisUtil.mGet(keys);
+
+        assertEquals(keys.stream().map(key -> "v:" + key).collect(Collectors.toList()), values);
+        assertEquals(Arrays.asList(RedisUtil.MULTI_KEY_BATCH_SIZE, RedisUtil.MULTI_KEY_BATCH_SIZE), batches);
+        assertEquals(2, roundTrips());
+    }
+
+    @Test
+    void testHmGetBatchPipelinesInChunks() {
+        List<String> keys = keys(2000);
+        List<Integer> batches = new ArrayList<>();
+        when(REDIS_TEMPLATE.executePipelined(any(SessionCallback.class)))
+                .thenAnswer(pipeline(batches, arguments -> arguments[0] + "." + arguments[1]));
+
+        List<Object> values = redisUtil.hmGetBatch(keys, "name");
+
+        assertEquals(keys.stream().map(key -> key + ".name").collect(Collectors.toList()), values);
+        assertEquals(Arrays.asList(RedisUtil.MULTI_KEY_BATCH_SIZE, RedisUtil.MULTI_KEY_BATCH_SIZE), batches);
+        assertEquals(2, roundTrips());
+    }
+
+    @Test
+    void testZScoreBatchPipelinesInChunks() {
+        List<Object> members = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            members.add(i);
+        }
+        List<Integer> batches = new ArrayList<>();
+        when(REDIS_TEMPLATE.executePipelined(any(SessionCallback.class)))
+                .thenAnswer(pipeline(batches, arguments -> ((Integer) arguments[1]).doubleValue()));
+
+        List<Double> scores = redisUtil.zScoreBatch("RANK", members);
+
+        assertEquals(2000, scores.size());
+        for (int i = 0; i < scores.size(); i++) {
+            assertEquals(Double.valueOf(i), scores.get(i));
+        }
+        assertEquals(Arrays.asList(RedisUtil.MULTI_KEY_BATCH_SIZE, RedisUtil.MULTI_KEY_BATCH_SIZE), batches);
+        assertEquals(2, roundTrips());
+    }
+
+    @Test
+    void testMSetWithExpireInvalidatesNearCacheWhenLaterChunkFails() {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        entries.put("CONFIG_SITE", "new");
+        for (String key : keys(1500)) {
+            entries.put(key, "value");
+        }
+        assertEquals("old", NEAR_CACHE.get("CONFIG_SITE", () -> "old"));
+        List<Integer> batches = new ArrayList<>();
+        Answer<List<Object>> pipeline = pipeline(batches, arguments -> true);
+        when(REDIS_TEMPLATE.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            if (!batches.isEmpty()) {
+                throw new RedisSystemException("第二批写入失败", null);
+            }
+            return pipeline.answer(invocation);
+        });
+
+        assertFalse(redisUtil.mSet(entries, 60L));
+
+        // 第一批已经写入，本地不能继续返回旧值
+        assertEquals(Collections.singletonList(RedisUtil.MULTI_KEY_BATCH_SIZE), batches);
+        assertEquals("new", NEAR_CACHE.get("CONFIG_SITE", () -> "new"));
+    }
+
+    /**
+     * 模拟管道：依次记录回调中发出的命令，按顺序返回 reply 根据命令参数计算的结果，batches 记录每批的命令数
+     */
+    private static Answer<List<Object>> pipeline(List<Integer> batches, Function<Object[], Object> reply) {
+        return invocation -> {
+            List<Object> results = new ArrayList<>();
+            Answer<Object> record = command -> {
+                results.add(reply.apply(command.getArguments()));
+                return null;
+            };
+            RedisOperations<String, Object> operations = mock(RedisOperations.class);
+            when(operations.opsForValue()).thenReturn(mock(ValueOperations.class, record));
+            when(operations.opsForHash()).thenReturn(mock(HashOperations.class, record));
+            when(operations.opsForZSet()).thenReturn(mock(ZSetOperations.class, record));
+            ((SessionCallback<?>) invocation.getArgument(0)).execute(operations);
+            batches.add(results.size());
+            return results;
+        };
+    }
+
+    private static List<String> keys(int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add("SESSION_" + i);
+        }
+        return keys;
+    }
+
+    private static long roundTrips() {
+        return Stream.of(REDIS_TEMPLATE, VALUE_OPERATIONS, SET_OPERATIONS)
+                .flatMap(mock -> mockingDetails(mock).getInvocations().stream())
+                .filter(invocation -> !invocation.getMethod().getName().startsWith("opsFor"))
+                .count();
+    }
+}
@@ -0,0 +1,85 @@
+package com.liuiie.demo.utils.lock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Space-Saving Top-K 热点统计
+ *
+ * @author Liuiie
+ * @since 2026/10/18 19:55
+ */
+public class SpaceSavingTopKTest {
+
+    @Test
+    void testKeepsHotKeysWithinCapacity() {
+        SpaceSavingTopK topK = new SpaceSavingTopK(8);
+        for (int round = 0; round < 1000; round++) {
+            topK.offer("hot-a");
+            topK.offer("hot-a");
+            topK.offer("hot-b");
+            // 大量只出现一次的冷门键
+            topK.offer("cold-" + round);
+        }
+
+        List<Map.Entry<String, Long>> top = topK.top(2);
+        assertEquals(2, top.size());
+        assertEquals("hot-a", top.get(0).getKey());
+        assertEquals("hot-b", top.get(1).getKey());
+        // 计数是上界
+        assertTrue(top.get(0).getValue() >= 2000);
+        assertEquals(8, topK.top(100).size());
+    }
+
+    @Test
+    void testClearRemovesAllKeys() {
+        SpaceSavingTopK topK = new SpaceSavingTopK(4);
+        topK.offer("a");
+        topK.clear();
+        assertTrue(topK.top(4).isEmpty());
+        // 清空后线程本地缓冲中的旧计数也不再出现
+        topK.offer("b");
+        assertEquals(1L, (long) topK.top(4).get(0).getValue());
+    }
+
+    @Test
+    void testMergesThreadBuffersOnRead() throws InterruptedException {
+        SpaceSavingTopK topK = new SpaceSavingTopK(16);
+        int threads = 8;
+        int perThread = 10000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    topK.offer(i % 2 == 0 ? "hot" : "cold-" + index + "-" + i);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        // 大量只取一次的短生命周期线程
+        for (int t = 0; t < 200; t++) {
+            Thread thread = new Thread(() -> topK.offer("short"));
+            thread.start();
+            thread.join();
+        }
+
+        List<Map.Entry<String, Long>> top = topK.top(16);
+        assertEquals("hot", top.get(0).getKey());
+        assertTrue(top.get(0).getValue() >= threads * perThread / 2);
+        // 所有缓冲都已合并：Space-Saving 的计数总和等于记录总次数
+        assertEquals(threads * perThread + 200L, top.stream().mapToLong(Map.Entry::getValue).sum());
+        // 已退出线程的缓冲合并后被移除
+        assertTrue(((Set<?>) ReflectionTestUtils.getField(topK, "buffers")).isEmpty());
+    }
+}
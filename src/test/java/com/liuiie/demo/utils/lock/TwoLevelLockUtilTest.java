@@ -0,0 +1,115 @@
+package com.liuiie.demo.utils.lock;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 两级锁的本地重入与引用计数
+ *
+ * @author Liuiie
+ * @since 2026/10/18 23:05
+ */
+public class TwoLevelLockUtilTest {
+    private static final FakeLockRedisTemplate REDIS = FakeLockRedisTemplate.INSTANCE;
+
+    @BeforeAll
+    static void installRedisTemplate() {
+        FakeLockRedisTemplate.install();
+    }
+
+    @AfterAll
+    static void restoreSpringContext() {
+        FakeLockRedisTemplate.uninstall();
+    }
+
+    @Test
+    void testReentrantLockOnlyTouchesRedisOnce() {
+        String key = "TWO_LEVEL_REENTRANT";
+        int tryLocks = REDIS.calls("tryLock");
+        int unlocks = REDIS.calls("unlock");
+        assertTrue(TwoLevelLockUtil.tryLock(key, 30, TimeUnit.SECONDS, 100));
+        assertTrue(TwoLevelLockUtil.tryLock(key, 30, TimeUnit.SECONDS, 100));
+        assertEquals(tryLocks + 1, REDIS.calls("tryLock"));
+        assertEquals(1, references(key));
+
+        assertTrue(TwoLevelLockUtil.unlock(key));
+        assertTrue(REDIS.isLocked(key));
+        assertEquals(unlocks, REDIS.calls("unlock"));
+        assertTrue(TwoLevelLockUtil.unlock(key));
+        assertFalse(REDIS.isLocked(key));
+        assertEquals(unlocks + 1, REDIS.calls("unlock"));
+        assertFalse(localLocks().containsKey(key));
+    }
+
+    @Test
+    void testWaitingThreadIsCountedAndReleasedOnTimeout() throws InterruptedException {
+        String key = "TWO_LEVEL_TIMEOUT";
+        assertTrue(TwoLevelLockUtil.tryLock(key, 30, TimeUnit.SECONDS, 100));
+        CountDownLatch waiting = new CountDownLatch(1);
+        AtomicBoolean acquired = new AtomicBoolean(true);
+        Thread waiter = new Thread(() -> {
+            waiting.countDown();
+            acquired.set(TwoLevelLockUtil.tryLock(key, 30, TimeUnit.SECONDS, 300));
+        });
+        waiter.start();
+        waiting.await();
+        long deadline = System.currentTimeMillis() + 1000;
+        while (references(key) < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        // 持有者与本地排队的线程各占一个引用
+        assertEquals(2, references(key));
+        waiter.join();
+        assertFalse(acquired.get());
+        assertEquals(1, references(key));
+
+        assertTrue(TwoLevelLockUtil.unlock(key));
+        assertFalse(localLocks().containsKey(key));
+    }
+
+    @Test
+    void testRedisFailureReleasesLocalLock() {
+        String key = "TWO_LEVEL_REMOTE_HELD";
+        // 其他实例已持有 Redis 锁
+        assertTrue(RedisLockUtil.tryLockWithNotify(key, "other-instance", 30, TimeUnit.SECONDS, 0));
+        assertFalse(TwoLevelLockUtil.tryLock(key, 30, TimeUnit.SECONDS, 0));
+        assertFalse(localLocks().containsKey(key));
+        assertFalse(TwoLevelLockUtil.unlock(key));
+        assertTrue(RedisLockUtil.unlock(key, "other-instance"));
+    }
+
+    @Test
+    void testUnlockByOtherThreadRejected() throws InterruptedException {
+        String key = "TWO_LEVEL_OTHER_THREAD";
+        assertTrue(TwoLevelLockUtil.tryLock(key, 30, TimeUnit.SECONDS, 100));
+        AtomicBoolean unlocked = new AtomicBoolean(true);
+        Thread other = new Thread(() -> unlocked.set(TwoLevelLockUtil.unlock(key)));
+        other.start();
+        other.join();
+        assertFalse(unlocked.get());
+        assertTrue(REDIS.isLocked(key));
+        assertEquals(1, references(key));
+        assertTrue(TwoLevelLockUtil.unlock(key));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> localLocks() {
+        return (Map<String, Object>) ReflectionTestUtils.getField(TwoLevelLockUtil.class, "LOCAL_LOCKS");
+    }
+
+    private static int references(String key) {
+        Object localLock = localLocks().get(key);
+        return localLock == null ? 0 : (int) ReflectionTestUtils.getField(localLock, "references");
+    }
+}